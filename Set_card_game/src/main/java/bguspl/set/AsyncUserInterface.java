@@ -0,0 +1,126 @@
+package bguspl.set;
+
+import java.awt.EventQueue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * A user interface that is built on the event dispatch thread while the game already runs.
+ * Calls made before it is ready are kept and replayed on it once it is built.
+ */
+class AsyncUserInterface implements UserInterface {
+
+    /**
+     * The calls made before the user interface was built (guarded by this).
+     */
+    private final List<Consumer<UserInterface>> pending = new ArrayList<>();
+
+    /**
+     * The built user interface (null until it is ready).
+     */
+    private volatile UserInterface ui;
+
+    /**
+     * True iff the user interface could not be built, calls are dropped (guarded by this).
+     */
+    private boolean failed;
+
+    AsyncUserInterface(Logger logger, boolean humanPlayers, Supplier<UserInterface> factory) {
+        EventQueue.invokeLater(() -> {
+            try {
+                UserInterface created = factory.get();
+                synchronized (this) {
+                    pending.forEach(call -> call.accept(created));
+                    pending.clear();
+                    ui = created;
+                }
+            } catch (UnsupportedOperationException | IllegalArgumentException e) {
+                logger.severe("error creating swing user interface: " + e.getMessage());
+                logger.severe("will try to run without user interface");
+                if (humanPlayers)
+                    logger.severe("warning: running with human players with no user interface");
+                synchronized (this) {
+                    failed = true;
+                    pending.clear();
+                }
+            }
+        });
+    }
+
+    private void call(Consumer<UserInterface> call) {
+        UserInterface ready = ui;
+        if (ready != null) {
+            call.accept(ready);
+            return;
+        }
+        synchronized (this) {
+            if (ui != null)
+                call.accept(ui);
+            else if (!failed)
+                pending.add(call);
+        }
+    }
+
+    @Override
+    public void placeCard(int card, int slot) {
+        call(ui -> ui.placeCard(card, slot));
+    }
+
+    @Override
+    public void removeCard(int slot) {
+        call(ui -> ui.removeCard(slot));
+    }
+
+    @Override
+    public void placeToken(int player, int slot) {
+        call(ui -> ui.placeToken(player, slot));
+    }
+
+    @Override
+    public void removeTokens() {
+        call(UserInterface::removeTokens);
+    }
+
+    @Override
+    public void removeTokens(int slot) {
+        call(ui -> ui.removeTokens(slot));
+    }
+
+    @Override
+    public void removeToken(int player, int slot) {
+        call(ui -> ui.removeToken(player, slot));
+    }
+
+    @Override
+    public void setCountdown(long millies, boolean warn) {
+        call(ui -> ui.setCountdown(millies, warn));
+    }
+
+    @Override
+    public void setElapsed(long millies) {
+        call(ui -> ui.setElapsed(millies));
+    }
+
+    @Override
+    public void setFreeze(int player, long millies) {
+        call(ui -> ui.setFreeze(player, millies));
+    }
+
+    @Override
+    public void setScore(int player, int score) {
+        call(ui -> ui.setScore(player, score));
+    }
+
+    @Override
+    public void announceWinner(int[] players) {
+        call(ui -> ui.announceWinner(players));
+    }
+
+    @Override
+    public void dispose() {
+        call(UserInterface::dispose);
+    }
+}
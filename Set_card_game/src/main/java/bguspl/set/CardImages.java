@@ -0,0 +1,67 @@
+package bguspl.set;
+
+import javax.swing.ImageIcon;
+import java.awt.Image;
+import java.io.FileNotFoundException;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static java.lang.String.format;
+
+/**
+ * The card images, loaded in parallel in the background once per process and shared by all the games.
+ */
+final class CardImages {
+
+    /**
+     * The images being loaded or loaded, by deck layout.
+     */
+    private static final Map<String, CompletableFuture<CardImages>> cache = new ConcurrentHashMap<>();
+
+    /**
+     * The image of each card.
+     */
+    final Image[] cards;
+
+    /**
+     * The image of an empty slot.
+     */
+    final Image emptyCard;
+
+    private CardImages(Image[] cards, Image emptyCard) {
+        this.cards = cards;
+        this.emptyCard = emptyCard;
+    }
+
+    static String intInBaseToPaddedString(int n, int padding, int base) {
+        return format("%" + padding + "s", Integer.toString(n, base)).replace(' ', '0');
+    }
+
+    /**
+     * Starts loading the card images of a configuration, or returns the images already loaded for it.
+     * @param config - the game configuration.
+     * @return - a future completed when all the images were loaded.
+     */
+    static CompletableFuture<CardImages> load(Config config) {
+        return cache.computeIfAbsent(config.featureCount + "x" + config.featureSize,
+                layout -> CompletableFuture.supplyAsync(() -> loadAll(config)));
+    }
+
+    private static CardImages loadAll(Config config) {
+        assert config.featureSize < 10; // otherwise there will be naming conflicts
+        Image[] cards = new Image[config.deckSize];
+        IntStream.range(0, config.deckSize).parallel().forEach(i ->
+                cards[i] = loadImageResource("cards/" + intInBaseToPaddedString(i, config.featureCount, config.featureSize) + ".png"));
+        return new CardImages(cards, loadImageResource("cards/empty_card.png"));
+    }
+
+    private static Image loadImageResource(String filename) {
+        URL imageResource = CardImages.class.getClassLoader().getResource(filename);
+        if (imageResource == null)
+            throw new RuntimeException(new FileNotFoundException(filename));
+        return new ImageIcon(imageResource).getImage();
+    }
+}
@@ -61,6 +61,11 @@ public class Config {
      */
     public final long turnTimeoutMillis;
 
+    /**
+     * The number of milliseconds a set claim may wait for the dealer's verdict (0 for no limit)
+     */
+    public final long claimTimeoutMillis;
+
     /**
      * The number of milliseconds the turn countdown warning should be displayed
      */
@@ -81,11 +86,92 @@ public class Config {
      */
     public final long tableDelayMillis;
 
+    /**
+     * True iff on turn timeout the dealer swaps only the cards needed for a set instead of reshuffling the whole table
+     */
+    public final boolean partialReshuffle;
+
     /**
      * The number of milliseconds to pause at the end of the game before closing
      */
     public final long endGamePauseMillies;
 
+    /**
+     * The order in which the dealer checks set claims ("fifo", "earliest-press" or "round-robin")
+     */
+    public final String claimPolicy;
+
+    /**
+     * The game engine ("threads" for a thread per player, "actor" for a single game loop thread, "pool" for players
+     * running as tasks on a shared pool of threads)
+     */
+    public final String engine;
+
+    /**
+     * The number of threads running the players of the "pool" engine (0 for one per available processor)
+     */
+    public final int playerPoolThreads;
+
+    /**
+     * The rule that decides which cards form a set ("classic", "ultra" or a constraint per feature, see SetRule)
+     */
+    public final String setRule;
+
+    /**
+     * The maximal key presses per second of a computer player (0 for no limit)
+     */
+    public final double botPressesPerSecond;
+
+    /**
+     * The set claims per second the computer players pace their key presses for (0 for no target)
+     */
+    public final double botClaimsPerSecond;
+
+    /**
+     * The file the game state is periodically saved to and restored from (empty for no snapshots)
+     */
+    public final String snapshotFile;
+
+    /**
+     * The number of milliseconds between game state snapshots
+     */
+    public final long snapshotIntervalMillis;
+
+    /**
+     * The file the results of finished games are appended to (empty for no match store)
+     */
+    public final String matchStoreFile;
+
+    /**
+     * The number of game results the match store writes to disk together
+     */
+    public final int matchStoreBatchSize;
+
+    /**
+     * The port of the metrics endpoint (-1 for no endpoint, 0 for any free port)
+     */
+    public final int metricsPort;
+
+    /**
+     * The host name or address the metrics endpoint listens on (localhost unless set, to serve other hosts too)
+     */
+    public final String metricsHost;
+
+    /**
+     * True iff the game threads are profiled and a contention report is logged at the end of each game
+     */
+    public final boolean profileThreads;
+
+    /**
+     * The number of milliseconds between two samples of the profiled threads' states
+     */
+    public final long profileSampleMillis;
+
+    /**
+     * True iff the state of an ended game's table is kept and reused by the next game of the same shape
+     */
+    public final boolean poolGameState;
+
     /**
      * The names of the players to display on the screen
      * Note: if there are more players than names, the remaining players will be called "Player 3", "Player 4", etc.
@@ -155,7 +241,7 @@ public class Config {
      * @param filename - the name of the configuration file.
      * @return - a properties object with the configuration file contents.
      */
-    private static Properties loadProperties(String filename, Logger logger) {
+    static Properties loadProperties(String filename, Logger logger) {
 
         Properties properties = new Properties();
 
@@ -205,11 +291,30 @@ public class Config {
 
         hints = Boolean.parseBoolean(properties.getProperty("Hints", "False"));
         turnTimeoutMillis = (long) (Double.parseDouble(properties.getProperty("TurnTimeoutSeconds", "60")) * 1000.0);
+        claimTimeoutMillis = (long) (Double.parseDouble(properties.getProperty("ClaimTimeoutSeconds", "0")) * 1000.0);
         turnTimeoutWarningMillis = (long) (Double.parseDouble(properties.getProperty("TurnTimeoutWarningSeconds", "60")) * 1000.0);
         pointFreezeMillis = (long) (Double.parseDouble(properties.getProperty("PointFreezeSeconds", "1")) * 1000.0);
         penaltyFreezeMillis = (long) (Double.parseDouble(properties.getProperty("PenaltyFreezeSeconds", "3")) * 1000.0);
         tableDelayMillis = (long) (Double.parseDouble(properties.getProperty("TableDelaySeconds", "0.1")) * 1000.0);
+        partialReshuffle = properties.getProperty("ReshuffleMode", "full").trim().equalsIgnoreCase("partial");
         endGamePauseMillies = (long) (Double.parseDouble(properties.getProperty("EndGamePauseSeconds", "5")) * 1000.0);
+        claimPolicy = properties.getProperty("ClaimPolicy", "fifo");
+        engine = properties.getProperty("Engine", "threads");
+        playerPoolThreads = Integer.parseInt(properties.getProperty("PlayerPoolThreads", "0"));
+        setRule = properties.getProperty("SetRule", "classic");
+        botPressesPerSecond = Double.parseDouble(properties.getProperty("BotPressesPerSecond", "0"));
+        botClaimsPerSecond = Double.parseDouble(properties.getProperty("BotClaimsPerSecond", "0"));
+        snapshotFile = properties.getProperty("SnapshotFile", "").trim();
+        snapshotIntervalMillis = (long) (Double.parseDouble(properties.getProperty("SnapshotIntervalSeconds", "10")) * 1000.0);
+        if (snapshotIntervalMillis <= 0)
+            logger.severe("invalid snapshot interval: " + snapshotIntervalMillis);
+        matchStoreFile = properties.getProperty("MatchStoreFile", "").trim();
+        matchStoreBatchSize = Integer.parseInt(properties.getProperty("MatchStoreBatchSize", "10"));
+        metricsPort = Integer.parseInt(properties.getProperty("MetricsPort", "-1"));
+        metricsHost = properties.getProperty("MetricsHost", "localhost").trim();
+        profileThreads = Boolean.parseBoolean(properties.getProperty("ProfileThreads", "False"));
+        profileSampleMillis = Long.parseLong(properties.getProperty("ProfileSampleMillis", "1"));
+        poolGameState = Boolean.parseBoolean(properties.getProperty("PoolGameState", "False"));
 
         // ui settings
         String[] names = properties.getProperty("PlayerNames", "Player 1, Player 2").split(",");
@@ -244,4 +349,25 @@ public class Config {
     public int[] playerKeys(int player) {
         return playerKeys[player];
     }
+
+    /**
+     * Checks if another configuration differs from this one only in values a running game can switch to
+     * (the timings, hints and random spin cycles).
+     * @param other - the other configuration.
+     * @return - true iff both configurations describe the same game structure.
+     */
+    public boolean sameStructure(Config other) {
+        return featureCount == other.featureCount && featureSize == other.featureSize
+                && humanPlayers == other.humanPlayers && computerPlayers == other.computerPlayers
+                && rows == other.rows && columns == other.columns
+                && Arrays.equals(playerNames, other.playerNames) && Arrays.deepEquals(playerKeys, other.playerKeys)
+                && claimPolicy.equals(other.claimPolicy) && engine.equals(other.engine) && setRule.equals(other.setRule) && snapshotFile.equals(other.snapshotFile)
+                && snapshotIntervalMillis == other.snapshotIntervalMillis && matchStoreFile.equals(other.matchStoreFile)
+                && matchStoreBatchSize == other.matchStoreBatchSize && metricsPort == other.metricsPort
+                && metricsHost.equals(other.metricsHost)
+                && profileThreads == other.profileThreads && profileSampleMillis == other.profileSampleMillis
+                && turnTimeoutMillis >= 0 == other.turnTimeoutMillis >= 0
+                && cellWidth == other.cellWidth && cellHeight == other.cellHeight && playerCellWidth == other.playerCellWidth
+                && playerCellHeight == other.playerCellHeight && fontSize == other.fontSize;
+    }
 }
@@ -0,0 +1,128 @@
+package bguspl.set;
+
+import bguspl.set.ex.Dealer;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+/**
+ * A source of the game configuration that watches the configuration file and publishes every valid change.
+ * Changes of the timings are picked up by running games at their next round (see Env::refreshConfig),
+ * other changes are picked up by the next game.
+ */
+public class ConfigSource implements AutoCloseable {
+
+    private final Logger logger;
+    private final String filename;
+
+    /**
+     * The latest valid configuration.
+     */
+    private final AtomicReference<Config> current;
+
+    /**
+     * The file watcher (null if the file is not watched).
+     */
+    private WatchService watcher;
+
+    /**
+     * Loads the configuration file and starts watching it, if it is in the file system (and not a resource).
+     * @param logger   - the logger.
+     * @param filename - the configuration file name.
+     */
+    public ConfigSource(Logger logger, String filename) {
+        this.logger = logger;
+        this.filename = filename;
+        this.current = new AtomicReference<>(new Config(logger, filename));
+
+        Path file = Paths.get(filename).toAbsolutePath();
+        if (!Files.exists(file))
+            return;
+        try {
+            watcher = FileSystems.getDefault().newWatchService();
+            file.getParent().register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            logger.severe("cannot watch configuration file " + filename + ": " + e.getMessage());
+            return;
+        }
+        Thread thread = new Thread(() -> watch(file), "config-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Returns the latest valid configuration.
+     */
+    public Config current() {
+        return current.get();
+    }
+
+    private void watch(Path file) {
+        try {
+            while (true) {
+                WatchKey key = watcher.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents())
+                    if (file.getFileName().equals(event.context()))
+                        changed = true;
+                key.reset();
+                if (changed)
+                    reload();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ignored) {}
+    }
+
+    /**
+     * Parses the configuration file and publishes it if it is valid.
+     */
+    private void reload() {
+        Config config;
+        try {
+            config = new Config(logger, filename);
+            validate(config);
+        } catch (RuntimeException e) {
+            logger.severe("ignoring invalid configuration change: " + e.getMessage());
+            return;
+        }
+        current.set(config);
+        logger.severe("configuration file " + filename + " reloaded");
+    }
+
+    /**
+     * Checks that the values of a configuration can be used by the game, including the names of the engine, the
+     * claim policy and the set rule, so the next game can be created with it.
+     * @throws IllegalArgumentException - if a value is invalid.
+     */
+    private static void validate(Config config) {
+        if (config.players <= 0 || config.humanPlayers < 0 || config.computerPlayers < 0)
+            throw new IllegalArgumentException("invalid number of players: " + config.players);
+        if (config.featureSize <= 1 || config.featureCount <= 0 || config.tableSize <= 0)
+            throw new IllegalArgumentException("invalid deck or table size");
+        if (config.turnTimeoutWarningMillis < 0 || config.pointFreezeMillis < 0 || config.penaltyFreezeMillis < 0
+                || config.tableDelayMillis < 0 || config.endGamePauseMillies < 0)
+            throw new IllegalArgumentException("negative timing");
+        Dealer.checkConfig(config);
+        new UtilImpl(config);
+    }
+
+    /**
+     * Stops watching the configuration file.
+     */
+    @Override
+    public void close() {
+        if (watcher == null) return;
+        try {
+            watcher.close();
+        } catch (IOException ignored) {}
+    }
+}
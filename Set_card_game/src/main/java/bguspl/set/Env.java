@@ -5,14 +5,53 @@ import java.util.logging.Logger;
 public class Env {
 
     public final Logger logger;
-    public final Config config;
+
+    /**
+     * The configuration of the game, switched at the start of a round when the timings change (see refreshConfig).
+     */
+    public volatile Config config;
     public final UserInterface ui;
     public final Util util;
 
+    /**
+     * The store the results of finished games are recorded in (null if none).
+     */
+    public final MatchStore matchStore;
+
+    /**
+     * The source of configuration changes (null if the configuration never changes).
+     */
+    private final ConfigSource configSource;
+
     public Env(Logger logger, Config config, UserInterface ui, Util util) {
+        this(logger, config, ui, util, null);
+    }
+
+    public Env(Logger logger, Config config, UserInterface ui, Util util, MatchStore matchStore) {
+        this(logger, config, ui, util, matchStore, null);
+    }
+
+    public Env(Logger logger, Config config, UserInterface ui, Util util, MatchStore matchStore, ConfigSource configSource) {
         this.logger = logger;
         this.config = config;
         this.ui = ui;
         this.util = util;
+        this.matchStore = matchStore;
+        this.configSource = configSource;
+    }
+
+    /**
+     * Switches to the latest configuration of the source, if it differs from the current one only in values
+     * a running game can switch to. Called by the dealer thread at the start of every round.
+     * @return - true iff the configuration was switched.
+     */
+    public boolean refreshConfig() {
+        if (configSource == null) return false;
+        Config latest = configSource.current();
+        if (latest == config) return false;
+        if (!latest.sameStructure(config)) return false; // the next game will use it
+        config = latest;
+        logger.severe("switched to the reloaded configuration");
+        return true;
     }
 }
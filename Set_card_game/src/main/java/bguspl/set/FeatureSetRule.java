@@ -0,0 +1,182 @@
+package bguspl.set;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A set of featureSize cards where each feature must be the same in all the cards, different in all the cards,
+ * either (the classic rule) or anything. The constraints compile into three masks with a bit per feature group.
+ */
+final class FeatureSetRule implements SetRule {
+
+    private final PackedCards cards;
+
+    /**
+     * The lowest bit of the group of every feature that must be the same / different / either in all the cards.
+     */
+    private final long sameMask, differentMask, eitherMask;
+
+    /**
+     * The constraint of every feature, for cards that do not fit in a long.
+     */
+    private final String[] constraints;
+
+    /**
+     * @param constraints - the constraint of every feature ("same", "different", "either" or "any").
+     * @throws IllegalArgumentException - if a constraint is unknown or there is not one per feature.
+     */
+    FeatureSetRule(PackedCards cards, String[] constraints) {
+        if (constraints.length != cards.featureCount)
+            throw new IllegalArgumentException("expected " + cards.featureCount + " feature constraints, got " + constraints.length);
+        this.cards = cards;
+        this.constraints = constraints.clone();
+        long same = 0, different = 0, either = 0;
+        for (int i = 0; i < constraints.length; i++) {
+            long bit = 1L << (i * cards.featureSize);
+            switch (constraints[i]) {
+                case "same": same |= bit; break;
+                case "different": different |= bit; break;
+                case "either": either |= bit; break;
+                case "any": break;
+                default: throw new IllegalArgumentException("unknown feature constraint: " + constraints[i]);
+            }
+        }
+        sameMask = same;
+        differentMask = different;
+        eitherMask = either;
+    }
+
+    /**
+     * Returns the classic rule: every feature is either the same or different in all the cards.
+     */
+    static FeatureSetRule classic(PackedCards cards) {
+        String[] constraints = new String[cards.featureCount];
+        Arrays.fill(constraints, "either");
+        return new FeatureSetRule(cards, constraints);
+    }
+
+    @Override
+    public int size() {
+        return cards.featureSize;
+    }
+
+    @Override
+    public boolean completesPairs() {
+        return cards.packed != null && cards.featureSize == 3 && eitherMask == cards.lowMask;
+    }
+
+    @Override
+    public boolean test(int[] set) {
+        if (set.length != cards.featureSize)
+            return false;
+        if (cards.packed == null)
+            return testByFeatures(set);
+
+        // a feature is the same in all cards iff its group in the union equals the first card's group,
+        // and is different in all cards iff its group in the union is full (there are featureSize cards)
+        long union = 0;
+        for (int card : set)
+            union |= cards.packed[card];
+        long notSame = cards.nonZeroGroups(union ^ cards.packed[set[0]]);
+        long notDifferent = cards.nonZeroGroups(union ^ cards.fullMask);
+        return ((notSame & notDifferent & eitherMask) | (notSame & sameMask) | (notDifferent & differentMask)) == 0;
+    }
+
+    private boolean testByFeatures(int[] set) {
+        for (int i = 0; i < cards.featureCount; ++i) {
+            boolean sameSame = true, butDifferent = true;
+
+            // check if this features is sameSame in all cards
+            for (int j = 1; j < set.length; ++j)
+                if (cards.features[set[0]][i] != cards.features[set[j]][i]) {
+                    sameSame = false;
+                    break;
+                }
+
+            // check if this feature is butDifferent in all cards
+            for (int j = 0; j < set.length && butDifferent; ++j)
+                for (int k = j + 1; k < set.length; ++k)
+                    if (cards.features[set[j]][i] == cards.features[set[k]][i]) {
+                        butDifferent = false;
+                        break;
+                    }
+
+            switch (constraints[i]) {
+                case "same": if (!sameSame) return false; break;
+                case "different": if (!butDifferent) return false; break;
+                case "either": if (sameSame == butDifferent) return false; break;
+                default: break;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public List<int[]> findSets(List<Integer> deck, int count) {
+        // with 3 choices and no "any" feature, the only card that can complete a pair is the classic third card
+        if (cards.packed != null && cards.featureSize == 3 && (sameMask | differentMask | eitherMask) == cards.lowMask)
+            return findTriples(deck, count);
+        return findCombinations(deck, count);
+    }
+
+    /**
+     * Finds sets of 3 cards by looking up the single card that completes each pair, in the same order as the
+     * combinations are generated by findCombinations.
+     */
+    private List<int[]> findTriples(List<Integer> deck, int count) {
+        boolean classic = eitherMask == cards.lowMask;
+        LinkedList<int[]> sets = new LinkedList<>();
+        int n = deck.size();
+        long[] packed = new long[n];
+        Map<Long, Integer> positions = new HashMap<>(2 * n);
+        for (int i = 0; i < n; i++) {
+            packed[i] = cards.packed[deck.get(i)];
+            positions.put(packed[i], i);
+        }
+
+        for (int i = 0; i < n; i++)
+            for (int j = i + 1; j < n; j++) {
+                Integer k = positions.get(cards.third(packed[i], packed[j]));
+                if (k != null && k > j) {
+                    int[] set = {deck.get(i), deck.get(j), deck.get(k)};
+                    if (!classic && !test(set))
+                        continue;
+                    Arrays.sort(set);
+                    sets.add(set);
+                    if (sets.size() >= count) return sets;
+                }
+            }
+        return sets;
+    }
+
+    /**
+     * Finds sets by testing every combination of featureSize cards.
+     */
+    private List<int[]> findCombinations(List<Integer> deck, int count) {
+        LinkedList<int[]> sets = new LinkedList<>();
+        int n = deck.size();
+        int r = cards.featureSize;
+        int[] combination = new int[r];
+
+        for (int i = 0; i < r; ++i)
+            combination[i] = i;
+
+        while (combination[r - 1] < deck.size()) {
+            int[] set = Arrays.stream(combination).map(deck::get).sorted().toArray();
+            if (test(set)) {
+                sets.add(set);
+                if (sets.size() >= count) return sets;
+            }
+
+            // generate next combination in lexicographic order
+            int t = r - 1;
+            while (t != 0 && combination[t] == n - r + t) --t;
+            combination[t]++;
+            for (int i = t + 1; i < r; i++) combination[i] = combination[i - 1] + 1;
+        }
+        return sets;
+    }
+}
@@ -0,0 +1,105 @@
+package bguspl.set;
+
+/**
+ * The Java Flight Recorder events of the game hot paths.
+ * They cost next to nothing unless a recording is running (e.g. java -XX:StartFlightRecording ...), and then show up
+ * next to the GC and lock events of the same recording. The recording thread is part of every event.
+ *
+ * The project targets Java 8, whose JREs before 8u262 have no jdk.jfr: the event types (see FlightRecorderEvents)
+ * are only loaded after a one time check that the running JRE has them, otherwise every event is a no-op.
+ * A begun event is an opaque handle (null when events are off) to pass to its end method.
+ */
+public final class FlightEvents {
+
+    private FlightEvents() {}
+
+    /**
+     * True iff the running JRE has the flight recorder.
+     */
+    private static final boolean AVAILABLE = available();
+
+    private static boolean available() {
+        try {
+            Class.forName("jdk.jfr.Event", false, FlightEvents.class.getClassLoader());
+            return FlightRecorderEvents.available();
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * The dealer starts checking a player's set claim.
+     */
+    public static Object beginCheckSet() {
+        return AVAILABLE ? FlightRecorderEvents.beginCheckSet() : null;
+    }
+
+    /**
+     * @param verdict - 1 for a set, 0 for a wrong set, -1 if the cards left the table.
+     * @param latency - the time from the claim's submission to the verdict, in nanoseconds.
+     */
+    public static void endCheckSet(Object event, int player, int verdict, long latency) {
+        if (event != null)
+            FlightRecorderEvents.endCheckSet(event, player, verdict, latency);
+    }
+
+    /**
+     * The dealer starts filling the empty slots of the table.
+     */
+    public static Object beginPlaceCards() {
+        return AVAILABLE ? FlightRecorderEvents.beginPlaceCards() : null;
+    }
+
+    /**
+     * @param player - the player whose set freed the slots, -1 for a new round.
+     */
+    public static void endPlaceCards(Object event, int player, int cards, int deckSize) {
+        if (event != null)
+            FlightRecorderEvents.endPlaceCards(event, player, cards, deckSize);
+    }
+
+    /**
+     * The dealer starts returning all the cards of the table to the deck.
+     */
+    public static Object beginRemoveAllCards() {
+        return AVAILABLE ? FlightRecorderEvents.beginRemoveAllCards() : null;
+    }
+
+    public static void endRemoveAllCards(Object event, int cards) {
+        if (event != null)
+            FlightRecorderEvents.endRemoveAllCards(event, cards);
+    }
+
+    /**
+     * A player submits a set claim and starts waiting for the dealer's verdict.
+     */
+    public static Object beginSubmitSet() {
+        return AVAILABLE ? FlightRecorderEvents.beginSubmitSet() : null;
+    }
+
+    public static void endSubmitSet(Object event, int player, boolean valid, boolean penalized) {
+        if (event != null)
+            FlightRecorderEvents.endSubmitSet(event, player, valid, penalized);
+    }
+
+    /**
+     * A player gets a point or a penalty.
+     * @param freeze - the freeze time in milliseconds.
+     */
+    public static void score(int player, boolean penalty, int score, long freeze) {
+        if (AVAILABLE)
+            FlightRecorderEvents.score(player, penalty, score, freeze);
+    }
+
+    /**
+     * A search for sets among cards starts.
+     */
+    public static Object beginFindSets() {
+        return AVAILABLE ? FlightRecorderEvents.beginFindSets() : null;
+    }
+
+    public static void endFindSets(Object event, int deckSize, int requested, int found) {
+        if (event != null)
+            FlightRecorderEvents.endFindSets(event, deckSize, requested, found);
+    }
+}
@@ -0,0 +1,217 @@
+package bguspl.set;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * The Java Flight Recorder event types, loaded only through FlightEvents once it found that the running JRE has
+ * jdk.jfr, so a JRE without it never resolves this class. The event objects are passed around as plain Objects.
+ */
+final class FlightRecorderEvents {
+
+    private FlightRecorderEvents() {}
+
+    static boolean available() {
+        return FlightRecorder.isAvailable();
+    }
+
+    static Object begin(Event event) {
+        event.begin();
+        return event;
+    }
+
+    static Object beginCheckSet() {
+        return begin(new CheckSet());
+    }
+
+    static void endCheckSet(Object begun, int player, int verdict, long latency) {
+        CheckSet event = (CheckSet) begun;
+        event.end();
+        if (event.shouldCommit()) {
+            event.player = player;
+            event.verdict = verdict;
+            event.latency = latency;
+            event.commit();
+        }
+    }
+
+    static Object beginPlaceCards() {
+        return begin(new PlaceCards());
+    }
+
+    static void endPlaceCards(Object begun, int player, int cards, int deckSize) {
+        PlaceCards event = (PlaceCards) begun;
+        event.end();
+        if (event.shouldCommit()) {
+            event.player = player;
+            event.cards = cards;
+            event.deckSize = deckSize;
+            event.commit();
+        }
+    }
+
+    static Object beginRemoveAllCards() {
+        return begin(new RemoveAllCards());
+    }
+
+    static void endRemoveAllCards(Object begun, int cards) {
+        RemoveAllCards event = (RemoveAllCards) begun;
+        event.end();
+        if (event.shouldCommit()) {
+            event.cards = cards;
+            event.commit();
+        }
+    }
+
+    static Object beginSubmitSet() {
+        return begin(new SubmitSet());
+    }
+
+    static void endSubmitSet(Object begun, int player, boolean valid, boolean penalized) {
+        SubmitSet event = (SubmitSet) begun;
+        event.end();
+        if (event.shouldCommit()) {
+            event.player = player;
+            event.valid = valid;
+            event.penalized = penalized;
+            event.commit();
+        }
+    }
+
+    static void score(int player, boolean penalty, int score, long freeze) {
+        Score event = new Score();
+        if (event.shouldCommit()) {
+            event.player = player;
+            event.penalty = penalty;
+            event.score = score;
+            event.freeze = freeze;
+            event.commit();
+        }
+    }
+
+    static Object beginFindSets() {
+        return begin(new FindSets());
+    }
+
+    static void endFindSets(Object begun, int deckSize, int requested, int found) {
+        FindSets event = (FindSets) begun;
+        event.end();
+        if (event.shouldCommit()) {
+            event.deckSize = deckSize;
+            event.requested = requested;
+            event.found = found;
+            event.commit();
+        }
+    }
+
+    @Name("bguspl.set.CheckSet")
+    @Label("Check Set")
+    @Category("Set Game")
+    @Description("The dealer checks a player's set claim")
+    @StackTrace(false)
+    static class CheckSet extends Event {
+        @Label("Player")
+        public int player;
+
+        @Label("Verdict")
+        @Description("1 for a set, 0 for a wrong set, -1 if the cards left the table")
+        public int verdict;
+
+        @Label("Latency")
+        @Description("The time from the claim's submission to the verdict")
+        @Timespan(Timespan.NANOSECONDS)
+        public long latency;
+    }
+
+    @Name("bguspl.set.PlaceCards")
+    @Label("Place Cards")
+    @Category("Set Game")
+    @Description("The dealer fills the empty slots of the table")
+    @StackTrace(false)
+    static class PlaceCards extends Event {
+        @Label("Player")
+        @Description("The player whose set freed the slots, -1 for a new round")
+        public int player;
+
+        @Label("Cards Placed")
+        public int cards;
+
+        @Label("Deck Size")
+        public int deckSize;
+    }
+
+    @Name("bguspl.set.RemoveAllCards")
+    @Label("Remove All Cards")
+    @Category("Set Game")
+    @Description("The dealer returns all the cards of the table to the deck")
+    @StackTrace(false)
+    static class RemoveAllCards extends Event {
+        @Label("Player")
+        public int player = -1;
+
+        @Label("Cards Removed")
+        public int cards;
+    }
+
+    @Name("bguspl.set.SubmitSet")
+    @Label("Submit Set")
+    @Category("Set Game")
+    @Description("A player submits a set claim and waits for the dealer's verdict")
+    @StackTrace(false)
+    static class SubmitSet extends Event {
+        @Label("Player")
+        public int player;
+
+        @Label("Valid")
+        public boolean valid;
+
+        @Label("Penalized")
+        public boolean penalized;
+    }
+
+    @Name("bguspl.set.Score")
+    @Label("Score")
+    @Category("Set Game")
+    @Description("A player gets a point or a penalty")
+    @StackTrace(false)
+    static class Score extends Event {
+        @Label("Player")
+        public int player;
+
+        @Label("Penalty")
+        public boolean penalty;
+
+        @Label("Score")
+        public int score;
+
+        @Label("Freeze")
+        @Timespan(Timespan.MILLISECONDS)
+        public long freeze;
+    }
+
+    @Name("bguspl.set.FindSets")
+    @Label("Find Sets")
+    @Category("Set Game")
+    @Description("A search for sets among cards")
+    @StackTrace(false)
+    static class FindSets extends Event {
+        @Label("Player")
+        @Description("Always -1, the search does not belong to a player")
+        public int player = -1;
+
+        @Label("Deck Size")
+        public int deckSize;
+
+        @Label("Sets Requested")
+        public int requested;
+
+        @Label("Sets Found")
+        public int found;
+    }
+}
@@ -1,11 +1,16 @@
 package bguspl.set;
 
 import bguspl.set.ex.Dealer;
+import bguspl.set.ex.GameSnapshot;
 import bguspl.set.ex.Player;
 import bguspl.set.ex.Table;
 
+import java.awt.GraphicsEnvironment;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
 import java.util.Calendar;
@@ -22,6 +27,7 @@ public class Main {
 
     private static boolean xButtonPressed = false;
     private static Logger logger;
+    private static MatchStore matchStore;
 
     public static void xButtonPressed() throws InterruptedException {
         if (logger != null) logger.severe("exit button pressed");
@@ -33,36 +39,53 @@ public class Main {
     /**
      * The game's main function. Creates all data structures and initializes the threads.
      *
-     * @param args - unused.
+     * @param args - "tournament" followed by the tournament arguments to run a tournament (see Tournament), otherwise unused.
      */
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("tournament")) {
+            Tournament.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        // the environment objects that do not change between games are created once
+        logger = initLogger();
+        ConfigSource configSource = new ConfigSource(logger, "config.properties");
+        Config config = configSource.current();
+        Util util = new UtilImpl(config);
+        matchStore = openMatchStore(config);
+        MetricsServer metrics = startMetricsServer(config);
+        boolean headless = GraphicsEnvironment.isHeadless();
+        if (!headless) CardImages.load(config); // start loading the images while the rest is created
+
         for(int a = 0 ; a <25; a++){
             mainThread = Thread.currentThread();
 
-        // create the game environment objects
-        logger = initLogger();
+        // create the game environment objects, every game starts with the latest configuration
         ThreadLogger.logStart(logger, Thread.currentThread().getName());
-        Config config = new Config(logger, "config.properties");
-        Util util = new UtilImpl(config);        
+        if (configSource.current() != config) {
+            config = configSource.current();
+            util = new UtilImpl(config);
+        }
+        Config gameConfig = config;
         Player[] players = new Player[config.players];
         UserInterface ui = null;
-        try {
-            ui = new UserInterfaceSwing(logger, config, players);
-        } catch (UnsupportedOperationException | IllegalArgumentException e) {
-            logger.severe("error creating swing user interface: " + e.getMessage());
+        // the window is built on the event dispatch thread while the game starts
+        if (headless) {
+            logger.severe("error creating swing user interface: no display");
             logger.severe("will try to run without user interface");
             if (config.humanPlayers > 0)
                 logger.severe("warning: running with human players with no user interface");
-        }
+        } else
+            ui = new AsyncUserInterface(logger, config.humanPlayers > 0, () -> new UserInterfaceSwing(logger, gameConfig, players));
         ui = new UserInterfaceDecorator(logger, util, ui);
 
-        Env env = new Env(logger, config, ui, util);
+        Env env = new Env(logger, config, ui, util, matchStore, configSource);
 
         // create the game entities
         Table table = new Table(env);
-        dealer = new Dealer(env, table, players);
+        dealer = Dealer.create(env, table, players);
         for (int i = 0; i < players.length; i++)
             players[i] = new Player(env, dealer, table, i, i < env.config.humanPlayers);
+        restoreSnapshot(config, util.setSize(), dealer);
 
         // start the dealer thread
         ThreadLogger dealerThread = new ThreadLogger(dealer, "dealer", logger);
@@ -81,10 +104,67 @@ public class Main {
             for (Handler h : logger.getHandlers()) h.flush();
         }
         }
-        
+        closeMatchStore();
+        configSource.close();
+        if (metrics != null) metrics.close();
+    }
+
+    /**
+     * Starts the configured metrics endpoint, if there is one.
+     */
+    static MetricsServer startMetricsServer(Config config) {
+        if (config.metricsPort < 0) return null;
+        try {
+            return new MetricsServer(logger, config.metricsHost, config.metricsPort);
+        } catch (IOException e) {
+            logger.severe("cannot start the metrics endpoint on port " + config.metricsPort + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Opens the configured match store, if there is one.
+     */
+    private static MatchStore openMatchStore(Config config) {
+        if (config.matchStoreFile.isEmpty()) return null;
+        try {
+            return new MatchStore(logger, Paths.get(config.matchStoreFile), config.matchStoreBatchSize);
+        } catch (IOException e) {
+            logger.severe("cannot open match store " + config.matchStoreFile + ", results will not be recorded: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes the pending results of the match store and logs the leaderboard.
+     */
+    private static void closeMatchStore() {
+        if (matchStore == null) return;
+        try {
+            matchStore.close();
+        } catch (IOException e) {
+            logger.severe("cannot write match store: " + e.getMessage());
+        }
+        logger.severe("leaderboard after " + matchStore.games() + " games: " + matchStore.leaderboard(10));
+    }
+
+    /**
+     * Restores the game state from the configured snapshot file, if there is one.
+     */
+    private static void restoreSnapshot(Config config, int setSize, Dealer dealer) {
+        if (config.snapshotFile.isEmpty()) return;
+        Path file = Paths.get(config.snapshotFile);
+        if (!Files.exists(file)) return;
+        try {
+            long start = System.nanoTime();
+            dealer.restore(GameSnapshot.read(file, config, setSize));
+            logger.severe("game restored from " + file + " in " + (System.nanoTime() - start) / 1000 + " micros");
+        } catch (IOException | IllegalArgumentException e) {
+            logger.severe("cannot restore snapshot " + file + ", starting a new game: " + e.getMessage());
+        }
     }
 
-    private static Logger initLogger() {
+    static Logger initLogger() {
 
         //just to make our log file nicer :)
         SimpleDateFormat format = new SimpleDateFormat("M-d_HH-mm-ss");
@@ -0,0 +1,94 @@
+package bguspl.set;
+
+/**
+ * The result of one finished game, as recorded in the match store.
+ */
+public class MatchResult {
+
+    /**
+     * The time (in millis since the epoch) the game started.
+     */
+    public final long startMillis;
+
+    /**
+     * The duration of the game in milliseconds.
+     */
+    public final long durationMillis;
+
+    /**
+     * The names of the players.
+     */
+    public final String[] names;
+
+    /**
+     * The number of sets each player found.
+     */
+    public final int[] sets;
+
+    /**
+     * The number of penalties each player got.
+     */
+    public final int[] penalties;
+
+    /**
+     * The total time (in millis) each player was frozen.
+     */
+    public final long[] frozenMillis;
+
+    /**
+     * True for each player that won (or shared the win).
+     */
+    public final boolean[] winners;
+
+    public MatchResult(long startMillis, long durationMillis, String[] names, int[] sets, int[] penalties,
+                       long[] frozenMillis, boolean[] winners) {
+        this.startMillis = startMillis;
+        this.durationMillis = durationMillis;
+        this.names = names;
+        this.sets = sets;
+        this.penalties = penalties;
+        this.frozenMillis = frozenMillis;
+        this.winners = winners;
+    }
+
+    /**
+     * Returns the result as one log line: the start time, the duration and a field per player
+     * ("name,sets,penalties,frozenMillis,winner"), separated by tabs.
+     */
+    String toLine() {
+        StringBuilder sb = new StringBuilder().append(startMillis).append('\t').append(durationMillis);
+        for (int i = 0; i < names.length; i++)
+            sb.append('\t').append(names[i].replaceAll("[\\t\\n\\r,]", " ")).append(',').append(sets[i])
+                    .append(',').append(penalties[i]).append(',').append(frozenMillis[i]).append(',').append(winners[i] ? 1 : 0);
+        return sb.append('\n').toString();
+    }
+
+    /**
+     * Parses a log line written by toLine.
+     * @param line - the line (without the line separator).
+     * @return - the result.
+     * @throws IllegalArgumentException - if the line is malformed.
+     */
+    static MatchResult fromLine(String line) {
+        String[] fields = line.split("\t");
+        if (fields.length < 2)
+            throw new IllegalArgumentException("malformed match record: " + line);
+        int players = fields.length - 2;
+        String[] names = new String[players];
+        int[] sets = new int[players];
+        int[] penalties = new int[players];
+        long[] frozenMillis = new long[players];
+        boolean[] winners = new boolean[players];
+        for (int i = 0; i < players; i++) {
+            String[] player = fields[i + 2].split(",");
+            if (player.length != 5)
+                throw new IllegalArgumentException("malformed match record: " + line);
+            names[i] = player[0];
+            sets[i] = Integer.parseInt(player[1]);
+            penalties[i] = Integer.parseInt(player[2]);
+            frozenMillis[i] = Long.parseLong(player[3]);
+            winners[i] = player[4].equals("1");
+        }
+        return new MatchResult(Long.parseLong(fields[0]), Long.parseLong(fields[1]), names, sets, penalties, frozenMillis, winners);
+    }
+}
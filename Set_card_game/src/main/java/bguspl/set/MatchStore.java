@@ -0,0 +1,182 @@
+package bguspl.set;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * An embedded store of the results of finished games, kept as an append-only log file on the local disk.
+ * The log is indexed in memory by player name, results are written and flushed to disk in batches.
+ */
+public class MatchStore implements AutoCloseable {
+
+    /**
+     * The accumulated results of one player across all the recorded games.
+     */
+    public static class PlayerRecord {
+
+        public final String name;
+        private int games;
+        private int wins;
+        private long sets;
+        private long penalties;
+        private long frozenMillis;
+
+        private PlayerRecord(String name) {
+            this.name = name;
+        }
+
+        public synchronized int games() { return games; }
+
+        public synchronized int wins() { return wins; }
+
+        public synchronized long sets() { return sets; }
+
+        public synchronized long penalties() { return penalties; }
+
+        public synchronized long frozenMillis() { return frozenMillis; }
+
+        private synchronized void add(int sets, int penalties, long frozenMillis, boolean winner) {
+            games++;
+            if (winner) wins++;
+            this.sets += sets;
+            this.penalties += penalties;
+            this.frozenMillis += frozenMillis;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return name + ": " + wins + " wins in " + games + " games, " + sets + " sets, " + penalties + " penalties";
+        }
+    }
+
+    private final Logger logger;
+    private final Path file;
+    private final int batchSize;
+
+    /**
+     * The players' records by name.
+     */
+    private final Map<String, PlayerRecord> index = new ConcurrentHashMap<>();
+
+    /**
+     * The results that were recorded but not written yet (guarded by this).
+     */
+    private final List<MatchResult> pending = new ArrayList<>();
+
+    /**
+     * The number of games in the store.
+     */
+    private int games;
+
+    /**
+     * Opens a store, loading the existing log into the index.
+     * @param logger    - the logger.
+     * @param file      - the log file (created if it does not exist).
+     * @param batchSize - the number of results to write together.
+     * @throws IOException - if the log cannot be read.
+     */
+    public MatchStore(Logger logger, Path file, int batchSize) throws IOException {
+        this.logger = logger;
+        this.file = file;
+        this.batchSize = Math.max(1, batchSize);
+        if (Files.exists(file))
+            load();
+    }
+
+    private void load() throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) continue;
+                try {
+                    addToIndex(MatchResult.fromLine(line));
+                } catch (IllegalArgumentException e) { // a record cut by a crash
+                    logger.severe("skipping match record: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void addToIndex(MatchResult result) {
+        for (int i = 0; i < result.names.length; i++)
+            index.computeIfAbsent(result.names[i], PlayerRecord::new)
+                    .add(result.sets[i], result.penalties[i], result.frozenMillis[i], result.winners[i]);
+        games++;
+    }
+
+    /**
+     * Records the result of a game, the result is queryable at once and written to disk with its batch.
+     * @param result - the result of the game.
+     * @throws IOException - if the batch cannot be written.
+     */
+    public synchronized void record(MatchResult result) throws IOException {
+        addToIndex(result);
+        pending.add(result);
+        if (pending.size() >= batchSize)
+            commit();
+    }
+
+    /**
+     * Writes the pending results to the log with one write and one flush to disk.
+     * @throws IOException - if the log cannot be written.
+     */
+    public synchronized void commit() throws IOException {
+        if (pending.isEmpty()) return;
+        StringBuilder batch = new StringBuilder();
+        for (MatchResult result : pending)
+            batch.append(result.toLine());
+        ByteBuffer bytes = ByteBuffer.wrap(batch.toString().getBytes(StandardCharsets.UTF_8));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (bytes.hasRemaining())
+                channel.write(bytes);
+            channel.force(false);
+        }
+        pending.clear();
+    }
+
+    /**
+     * Returns the record of a player, or null if the player never played.
+     */
+    public PlayerRecord player(String name) {
+        return index.get(name);
+    }
+
+    /**
+     * Returns the top players, by wins and then by sets found.
+     * @param count - the maximum number of players to return.
+     */
+    public List<PlayerRecord> leaderboard(int count) {
+        return index.values().stream()
+                .sorted(Comparator.comparingInt(PlayerRecord::wins).thenComparingLong(PlayerRecord::sets).reversed())
+                .limit(count)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the number of games in the store.
+     */
+    public synchronized int games() {
+        return games;
+    }
+
+    /**
+     * Writes the pending results.
+     */
+    @Override
+    public void close() throws IOException {
+        commit();
+    }
+}
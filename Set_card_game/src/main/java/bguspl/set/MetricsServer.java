@@ -0,0 +1,64 @@
+package bguspl.set;
+
+import bguspl.set.ex.GameMetrics;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+
+/**
+ * A tiny embedded HTTP server that serves the game metrics at /metrics for Prometheus to scrape.
+ */
+public class MetricsServer implements AutoCloseable {
+
+    private final HttpServer server;
+
+    /**
+     * Starts serving the metrics.
+     * @param logger - the logger.
+     * @param host   - the host name or address to listen on (e.g. localhost, or 0.0.0.0 for all the interfaces).
+     * @param port   - the port to listen on (0 for any free port).
+     * @throws IOException - if the server cannot be started.
+     */
+    public MetricsServer(Logger logger, String host, int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        server.createContext("/metrics", exchange -> {
+            byte[] body = GameMetrics.INSTANCE.export().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.setExecutor(Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.start();
+        logger.severe("serving metrics at http://" + host + ":" + port() + "/metrics");
+    }
+
+    /**
+     * Returns the address the server listens on.
+     */
+    public InetSocketAddress address() {
+        return server.getAddress();
+    }
+
+    /**
+     * Returns the port the server listens on.
+     */
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,92 @@
+package bguspl.set;
+
+/**
+ * The features of every card of the deck, computed once, and every card packed into a long: a group of featureSize
+ * bits per feature with the bit of the feature's value set. Set rules compile into bitwise checks over packed cards.
+ */
+final class PackedCards {
+
+    final int featureCount;
+    final int featureSize;
+
+    /**
+     * The features of every card.
+     */
+    final int[][] features;
+
+    /**
+     * The packed cards (null if the groups of all the features do not fit in a long).
+     */
+    final long[] packed;
+
+    /**
+     * All the bits of all the feature groups.
+     */
+    final long fullMask;
+
+    /**
+     * The lowest bit of every feature group.
+     */
+    final long lowMask;
+
+    PackedCards(Config config) {
+        featureCount = config.featureCount;
+        featureSize = config.featureSize;
+        features = new int[config.deckSize][featureCount];
+        for (int card = 0; card < config.deckSize; card++) {
+            int rest = card;
+            for (int i = featureCount - 1; i >= 0; --i) {
+                features[card][i] = rest % featureSize;
+                rest /= featureSize;
+            }
+        }
+
+        if (featureCount * featureSize <= Long.SIZE) {
+            long low = 0, full = 0;
+            for (int i = 0; i < featureCount; i++) {
+                low |= 1L << (i * featureSize);
+                full |= ((1L << featureSize) - 1) << (i * featureSize);
+            }
+            lowMask = low;
+            fullMask = full;
+            packed = new long[config.deckSize];
+            for (int card = 0; card < config.deckSize; card++)
+                for (int i = 0; i < featureCount; i++)
+                    packed[card] |= 1L << (i * featureSize + features[card][i]);
+        } else {
+            lowMask = fullMask = 0;
+            packed = null;
+        }
+    }
+
+    /**
+     * Returns a long with the lowest bit of every non zero feature group of x set.
+     */
+    long nonZeroGroups(long x) {
+        long folded = x;
+        for (int i = 1; i < featureSize; i++)
+            folded |= x >>> i;
+        return folded & lowMask;
+    }
+
+    /**
+     * Returns the packed card that completes a classic set with two packed cards (for 3 choices per feature):
+     * features that are the same keep their value, features that are different get the remaining value.
+     */
+    long third(long first, long second) {
+        long different = nonZeroGroups(first ^ second) * ((1L << featureSize) - 1);
+        return (first & ~different) | (fullMask & ~(first | second) & different);
+    }
+
+    /**
+     * Returns the card that completes a classic set with two cards (for 3 choices per feature).
+     */
+    int third(int first, int second) {
+        int card = 0;
+        for (int i = 0; i < featureCount; i++) {
+            int a = features[first][i], b = features[second][i];
+            card = card * featureSize + (a == b ? a : 3 - a - b);
+        }
+        return card;
+    }
+}
@@ -0,0 +1,42 @@
+package bguspl.set;
+
+import java.util.List;
+
+/**
+ * The rule that decides which cards form a set. A rule is compiled once when the game starts (see UtilImpl) into
+ * a bitwise validator over the packed cards, so variants check sets as fast as the classic rule.
+ *
+ * Rules are configured by the SetRule property:
+ * "classic"  - featureSize cards, every feature is the same in all of them or different in all of them.
+ * "ultra"    - 4 cards that split into two pairs completed by the same (absent) card, for 3 choices per feature.
+ * a list of featureCount constraints, one per feature: "same", "different", "either" (classic) or "any",
+ *              e.g. "same,either,either,any".
+ */
+public interface SetRule {
+
+    /**
+     * Returns the number of cards in a set.
+     */
+    int size();
+
+    /**
+     * Checks if cards form a set.
+     * @param cards - the card ids, size() of them.
+     * @return - true iff the cards form a set.
+     */
+    boolean test(int[] cards);
+
+    /**
+     * Finds up to count sets among cards.
+     * @param deck  - a collection of cards.
+     * @param count - the maximum number of sets to find.
+     * @return - up to count sets, each one sorted by card id.
+     */
+    List<int[]> findSets(List<Integer> deck, int count);
+
+    /**
+     * Returns true iff this is the classic rule with 3 choices per feature, so any two cards are completed to a set
+     * by exactly one card.
+     */
+    boolean completesPairs();
+}
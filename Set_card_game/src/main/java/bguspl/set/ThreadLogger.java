@@ -31,4 +31,22 @@ public class ThreadLogger extends Thread {
     public static void logStop(Logger logger, String name) {
         logger.info("thread " + name + " terminated.");
     }
+
+    /**
+     * Logs the start of the calling thread, and starts profiling it if the game is profiled.
+     * @param profiler - the game's thread profiler, or null if it is not profiled.
+     */
+    public static void logStart(Logger logger, ThreadProfiler profiler) {
+        logStart(logger, Thread.currentThread().getName());
+        if (profiler != null) profiler.threadStarted();
+    }
+
+    /**
+     * Logs the end of the calling thread, and stops profiling it if the game is profiled.
+     * @param profiler - the game's thread profiler, or null if it is not profiled.
+     */
+    public static void logStop(Logger logger, ThreadProfiler profiler) {
+        if (profiler != null) profiler.threadStopped();
+        logStop(logger, Thread.currentThread().getName());
+    }
 }
@@ -0,0 +1,206 @@
+package bguspl.set;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Profiles the threads of a game: how long each spends running, blocked on a monitor, waiting and sleeping.
+ * The totals come from the thread MX bean (contention monitoring), the split by monitor comes from sampling
+ * the threads' states every few milliseconds. Threads join the profile through ThreadLogger.
+ */
+public class ThreadProfiler {
+
+    private static final ThreadMXBean mx = ManagementFactory.getThreadMXBean();
+
+    /**
+     * The profile of a single thread.
+     */
+    private static class Profile {
+        final Thread thread;
+        final long startNanos;
+        final long startCpu;
+        final long startBlockedCount, startBlockedMillis, startWaitedCount, startWaitedMillis;
+        long stopNanos, stopCpu = -1;
+        long stopBlockedCount, stopBlockedMillis = -1, stopWaitedCount, stopWaitedMillis;
+        final Map<String, Integer> samples = new HashMap<>();
+        int sampleCount;
+
+        Profile(Thread thread, ThreadInfo info) {
+            this.thread = thread;
+            this.startNanos = System.nanoTime();
+            this.startCpu = cpuTime();
+            this.startBlockedCount = info.getBlockedCount();
+            this.startBlockedMillis = info.getBlockedTime();
+            this.startWaitedCount = info.getWaitedCount();
+            this.startWaitedMillis = info.getWaitedTime();
+        }
+
+        synchronized void sample(String state) {
+            samples.merge(state, 1, Integer::sum);
+            sampleCount++;
+        }
+
+        synchronized void stop(ThreadInfo info) {
+            stopNanos = System.nanoTime();
+            stopCpu = cpuTime();
+            stopBlockedCount = info.getBlockedCount();
+            stopBlockedMillis = info.getBlockedTime();
+            stopWaitedCount = info.getWaitedCount();
+            stopWaitedMillis = info.getWaitedTime();
+        }
+    }
+
+    /**
+     * The profiled threads, in the order they started.
+     */
+    private final ConcurrentLinkedQueue<Profile> profiles = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The profiles of the running threads by thread id.
+     */
+    private final Map<Long, Profile> running = new ConcurrentHashMap<>();
+
+    /**
+     * Readable names of the monitors, by their lock name (as reported in ThreadInfo).
+     */
+    private final Map<String, String> monitors = new ConcurrentHashMap<>();
+
+    private final long sampleMillis;
+
+    private final ScheduledExecutorService sampler;
+
+    /**
+     * @param sampleMillis - the time between two samples of the threads' states.
+     */
+    public ThreadProfiler(long sampleMillis) {
+        if (mx.isThreadContentionMonitoringSupported())
+            mx.setThreadContentionMonitoringEnabled(true);
+        if (mx.isThreadCpuTimeSupported() && !mx.isThreadCpuTimeEnabled())
+            mx.setThreadCpuTimeEnabled(true);
+        this.sampleMillis = Math.max(1, sampleMillis);
+        sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "profiler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sampler.scheduleAtFixedRate(this::sample, this.sampleMillis, this.sampleMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Gives a monitor a readable name in the report.
+     * @param monitor - the object threads synchronize on.
+     * @param name    - its name (a trailing "-N" groups monitors of the same kind).
+     */
+    public void nameMonitor(Object monitor, String name) {
+        monitors.put(monitor.getClass().getName() + '@' + Integer.toHexString(System.identityHashCode(monitor)), name);
+    }
+
+    /**
+     * Starts profiling the calling thread.
+     */
+    void threadStarted() {
+        Thread thread = Thread.currentThread();
+        Profile profile = new Profile(thread, mx.getThreadInfo(thread.getId()));
+        nameMonitor(thread, "thread " + thread.getName());
+        profiles.add(profile);
+        running.put(thread.getId(), profile);
+    }
+
+    /**
+     * Stops profiling the calling thread.
+     */
+    void threadStopped() {
+        Profile profile = running.remove(Thread.currentThread().getId());
+        if (profile != null)
+            profile.stop(mx.getThreadInfo(profile.thread.getId()));
+    }
+
+    /**
+     * Records the state of every running thread.
+     */
+    private void sample() {
+        List<Profile> sampled = new ArrayList<>(running.values());
+        long[] ids = new long[sampled.size()];
+        for (int i = 0; i < ids.length; i++)
+            ids[i] = sampled.get(i).thread.getId();
+        ThreadInfo[] infos = mx.getThreadInfo(ids, 0);
+        for (int i = 0; i < infos.length; i++)
+            if (infos[i] != null)
+                sampled.get(i).sample(state(infos[i]));
+    }
+
+    private String state(ThreadInfo info) {
+        String lock = info.getLockName();
+        String monitor = lock == null ? null : monitors.getOrDefault(lock, lock);
+        switch (info.getThreadState()) {
+            case RUNNABLE: return "running";
+            case BLOCKED: return "blocked on " + monitor;
+            case WAITING:
+            case TIMED_WAITING:
+                if (monitor != null) return "waiting on " + monitor;
+                return info.getThreadState() == Thread.State.TIMED_WAITING ? "sleeping" : "parked";
+            default: return info.getThreadState().toString().toLowerCase();
+        }
+    }
+
+    /**
+     * Stops sampling and builds the contention report of all the profiled threads.
+     * @return - the report, one line per thread followed by the monitors ranked by the time spent blocked on them.
+     */
+    public String close() {
+        sampler.shutdownNow();
+        try {
+            sampler.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+        StringBuilder sb = new StringBuilder();
+        Map<String, Long> blocked = new HashMap<>();
+        for (Profile profile : profiles) {
+            synchronized (profile) {
+                boolean stopped = profile.stopBlockedMillis >= 0;
+                long elapsed = ((stopped ? profile.stopNanos : System.nanoTime()) - profile.startNanos) / 1000000;
+                sb.append(String.format("%-12s %7d ms", profile.thread.getName(), elapsed));
+                if (profile.startCpu >= 0 && profile.stopCpu >= 0)
+                    sb.append(String.format(", cpu %d ms", (profile.stopCpu - profile.startCpu) / 1000000));
+                if (stopped)
+                    sb.append(String.format(", blocked %d times %d ms, waited %d times %d ms",
+                            profile.stopBlockedCount - profile.startBlockedCount,
+                            Math.max(0, profile.stopBlockedMillis - profile.startBlockedMillis),
+                            profile.stopWaitedCount - profile.startWaitedCount,
+                            Math.max(0, profile.stopWaitedMillis - profile.startWaitedMillis)));
+                List<Map.Entry<String, Integer>> states = new ArrayList<>(profile.samples.entrySet());
+                states.sort((a, b) -> b.getValue() - a.getValue());
+                for (Map.Entry<String, Integer> state : states) {
+                    sb.append(String.format(", %s %.1f%%", state.getKey(), 100.0 * state.getValue() / profile.sampleCount));
+                    if (state.getKey().startsWith("blocked on "))
+                        blocked.merge(state.getKey().substring("blocked on ".length()).replaceAll("-\\d+$", ""),
+                                state.getValue() * sampleMillis, Long::sum);
+                }
+                sb.append('\n');
+            }
+        }
+        List<Map.Entry<String, Long>> ranking = new ArrayList<>(blocked.entrySet());
+        ranking.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+        sb.append("monitors by time blocked on them:");
+        if (ranking.isEmpty())
+            sb.append(" none");
+        for (Map.Entry<String, Long> monitor : ranking)
+            sb.append(' ').append(monitor.getKey()).append(" ~").append(monitor.getValue()).append(" ms");
+        return sb.toString();
+    }
+
+    private static long cpuTime() {
+        return mx.isCurrentThreadCpuTimeSupported() ? mx.getCurrentThreadCpuTime() : -1;
+    }
+}
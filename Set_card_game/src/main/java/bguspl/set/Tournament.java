@@ -0,0 +1,190 @@
+package bguspl.set;
+
+import bguspl.set.ex.Dealer;
+import bguspl.set.ex.Player;
+import bguspl.set.ex.Table;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Runs a batch of computer player games in parallel, without a user interface, and writes aggregate statistics.
+ *
+ * The match plan is a text file with one entry per line: "config file | number of games | player names", e.g.
+ * "fast.properties | 100 | Alice, Bob, Carol". All the players of an entry are computer players, the configuration
+ * of an entry is parsed once and shared by all its games, which write no snapshots. Empty lines and lines starting
+ * with '#' are ignored.
+ */
+public class Tournament {
+
+    /**
+     * One line of the match plan.
+     */
+    private static class Entry {
+        final Config config;
+        final int games;
+
+        Entry(Config config, int games) {
+            this.config = config;
+            this.games = games;
+        }
+    }
+
+    private final Logger logger;
+    private final List<Entry> entries;
+    private final MatchStore store;
+
+    private Tournament(Logger logger, List<Entry> entries, MatchStore store) {
+        this.logger = logger;
+        this.entries = entries;
+        this.store = store;
+    }
+
+    /**
+     * The tournament's main function.
+     *
+     * @param args - the match plan file, optionally the number of games to run in parallel (default: one per core),
+     *               optionally the port of the metrics endpoint (default: none) and its host (default: localhost).
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("usage: tournament <match plan> [parallel games] [metrics port] [metrics host]");
+            return;
+        }
+        Path plan = Paths.get(args[0]);
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        Logger logger = Main.initLogger();
+        ThreadLogger.logStart(logger, Thread.currentThread().getName());
+        MetricsServer metrics = null;
+        if (args.length > 2) {
+            try {
+                metrics = new MetricsServer(logger, args.length > 3 ? args[3] : "localhost", Integer.parseInt(args[2]));
+            } catch (IOException e) {
+                logger.severe("cannot start the metrics endpoint on port " + args[2] + ": " + e.getMessage());
+            }
+        }
+        Path log = plan.resolveSibling(plan.getFileName() + ".log");
+        try {
+            List<Entry> entries = readPlan(logger, plan);
+            Files.deleteIfExists(log); // the log and the statistics cover the latest run of the plan only
+            try (MatchStore store = new MatchStore(logger, log, batchSize(entries))) {
+                Tournament tournament = new Tournament(logger, entries, store);
+                long start = System.currentTimeMillis();
+                int games = tournament.run(threads);
+                tournament.writeStatistics(plan.resolveSibling(plan.getFileName() + ".stats"), games, System.currentTimeMillis() - start);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            logger.severe("tournament failed: " + e.getMessage());
+            System.out.println("tournament failed: " + e.getMessage());
+        } finally {
+            if (metrics != null) metrics.close();
+            ThreadLogger.logStop(logger, Thread.currentThread().getName());
+        }
+    }
+
+    /**
+     * Reads and parses the match plan.
+     * @throws IOException - if the plan cannot be read.
+     * @throws IllegalArgumentException - if an entry is malformed.
+     */
+    private static List<Entry> readPlan(Logger logger, Path plan) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        for (String line : Files.readAllLines(plan, StandardCharsets.UTF_8)) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] fields = line.split("\\|");
+            if (fields.length != 3)
+                throw new IllegalArgumentException("malformed match plan entry: " + line);
+            String configFile = plan.resolveSibling(fields[0].trim()).toString();
+            Properties properties = Config.loadProperties(configFile, logger);
+            String[] roster = fields[2].split(",");
+            properties.setProperty("HumanPlayers", "0");
+            properties.setProperty("ComputerPlayers", Integer.toString(roster.length));
+            properties.setProperty("PlayerNames", fields[2]);
+            properties.setProperty("SnapshotFile", ""); // the games run in parallel, none of them can be resumed
+            entries.add(new Entry(new Config(logger, properties), Integer.parseInt(fields[1].trim())));
+        }
+        return entries;
+    }
+
+    /**
+     * Returns the number of results to write together, the smallest MatchStoreBatchSize of the plan's entries.
+     */
+    private static int batchSize(List<Entry> entries) {
+        return entries.stream().mapToInt(entry -> entry.config.matchStoreBatchSize).min().orElse(1);
+    }
+
+    /**
+     * Runs all the games of the plan.
+     * @param threads - the number of games to run in parallel.
+     * @return - the number of games that finished.
+     */
+    private int run(int threads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> new Thread(runnable, "game-" + threadCount.incrementAndGet()));
+        List<Future<?>> games = new ArrayList<>();
+        for (Entry entry : entries) {
+            Util util = new UtilImpl(entry.config);
+            UserInterface ui = new UserInterfaceDecorator(logger, util, null);
+            Env env = new Env(logger, entry.config, ui, util, store);
+            for (int i = 0; i < entry.games; i++)
+                games.add(pool.submit(() -> playGame(env)));
+        }
+        int finished = 0;
+        for (Future<?> game : games) {
+            try {
+                game.get();
+                finished++;
+            } catch (ExecutionException e) {
+                logger.severe("game failed: " + e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        pool.shutdownNow();
+        return finished;
+    }
+
+    /**
+     * Plays one game on the calling thread, which serves as the dealer thread.
+     */
+    private static void playGame(Env env) {
+        Player[] players = new Player[env.config.players];
+        Table table = new Table(env);
+        Dealer dealer = Dealer.create(env, table, players);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, false);
+        dealer.run();
+        Thread.interrupted(); // the players interrupt the dealer thread, do not pass it on to the next game
+    }
+
+    /**
+     * Writes the aggregate statistics of all the players in the store (the games of this run).
+     */
+    private void writeStatistics(Path file, int games, long wallMillis) throws IOException {
+        store.commit();
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            out.printf("games: %d, wall time: %.1f s, games per second: %.2f%n", games, wallMillis / 1000.0, games * 1000.0 / Math.max(1, wallMillis));
+            out.printf("%-20s %8s %8s %8s %10s %10s %12s%n", "player", "games", "wins", "win %", "sets", "penalties", "sets/game");
+            for (MatchStore.PlayerRecord player : store.leaderboard(Integer.MAX_VALUE))
+                out.printf("%-20s %8d %8d %8.1f %10d %10d %12.2f%n", player.name, player.games(), player.wins(),
+                        100.0 * player.wins() / player.games(), player.sets(), player.penalties(), (double) player.sets() / player.games());
+        }
+        logger.severe("tournament of " + games + " games took " + wallMillis + " millis, statistics written to " + file);
+        System.out.println("Tournament statistics written to " + file);
+    }
+}
@@ -0,0 +1,81 @@
+package bguspl.set;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An ultra set: 4 cards that split into two pairs completed to a classic set by the same card (which is not one of
+ * the 4). Checked with the bitwise third card of the packed cards, so it needs 3 choices per feature.
+ */
+final class UltraSetRule implements SetRule {
+
+    private static final int SIZE = 4;
+
+    private final PackedCards cards;
+
+    /**
+     * @throws IllegalArgumentException - if the features do not have 3 choices or the cards do not fit in a long.
+     */
+    UltraSetRule(PackedCards cards) {
+        if (cards.featureSize != 3 || cards.packed == null)
+            throw new IllegalArgumentException("ultra sets need 3 choices per feature and at most 21 features");
+        this.cards = cards;
+    }
+
+    @Override
+    public int size() {
+        return SIZE;
+    }
+
+    @Override
+    public boolean completesPairs() {
+        return false;
+    }
+
+    @Override
+    public boolean test(int[] set) {
+        if (set.length != SIZE)
+            return false;
+        long a = cards.packed[set[0]], b = cards.packed[set[1]], c = cards.packed[set[2]], d = cards.packed[set[3]];
+        if (a == b || a == c || a == d || b == c || b == d || c == d)
+            return false;
+        return cards.third(a, b) == cards.third(c, d)
+                || cards.third(a, c) == cards.third(b, d)
+                || cards.third(a, d) == cards.third(b, c);
+    }
+
+    /**
+     * Groups the pairs of cards by the card that completes them, any two disjoint pairs of a group are an ultra set.
+     */
+    @Override
+    public List<int[]> findSets(List<Integer> deck, int count) {
+        LinkedList<int[]> sets = new LinkedList<>();
+        Set<List<Integer>> found = new HashSet<>();
+        Map<Long, List<int[]>> pairs = new HashMap<>();
+        int n = deck.size();
+        for (int i = 0; i < n; i++)
+            for (int j = i + 1; j < n; j++) {
+                int first = deck.get(i), second = deck.get(j);
+                List<int[]> completed = pairs.computeIfAbsent(cards.third(cards.packed[first], cards.packed[second]),
+                        third -> new ArrayList<>(2));
+                for (int[] pair : completed) {
+                    if (pair[0] == first || pair[0] == second || pair[1] == first || pair[1] == second)
+                        continue;
+                    int[] set = {pair[0], pair[1], first, second};
+                    Arrays.sort(set);
+                    if (found.add(Arrays.asList(set[0], set[1], set[2], set[3]))) {
+                        sets.add(set);
+                        if (sets.size() >= count) return sets;
+                    }
+                }
+                completed.add(new int[]{first, second});
+            }
+        return sets;
+    }
+}
@@ -4,10 +4,11 @@ import bguspl.set.ex.Player;
 
 import javax.swing.*;
 import java.awt.*;
-import java.io.FileNotFoundException;
-import java.net.URL;
+import java.awt.image.BufferedImage;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -21,19 +22,23 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
     private final TimerPanel timerPanel;
     private final GamePanel gamePanel;
     private final PlayersPanel playersPanel;
+    private final JScrollPane playersScroll;
     private final WinnerPanel winnerPanel;
     private final Config config;
 
-    static String intInBaseToPaddedString(int n, int padding, int base) {
-        return format("%" + padding + "s", Integer.toString(n, base)).replace(' ', '0');
-    }
+    /**
+     * The card images, loaded in the background (the window is shown when they are ready).
+     */
+    private final CompletableFuture<CardImages> images;
 
     public UserInterfaceSwing(Logger logger, Config config, Player[] players) {
 
         this.config = config;
+        this.images = CardImages.load(config);
         timerPanel = new TimerPanel();
         gamePanel = new GamePanel();
         playersPanel = new PlayersPanel();
+        playersScroll = playersScroll(playersPanel);
         winnerPanel = new WinnerPanel();
 
         setLayout(new GridBagLayout());
@@ -48,7 +53,7 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
         gbc.gridy++;
         add(gamePanel, gbc);
         gbc.gridy++;
-        add(playersPanel, gbc);
+        add(playersScroll, gbc);
         gbc.gridy++;
         add(winnerPanel, gbc);
         gbc.gridwidth = 1;
@@ -63,10 +68,29 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
         setLocationRelativeTo(null);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 
-        addKeyListener(new InputManager(logger, config, players));
+        addKeyListener(new InputManager(config, players));
         addWindowListener(new WindowManager());
 
-        EventQueue.invokeLater(() -> setVisible(true));
+        images.whenComplete((loaded, error) -> {
+            if (error != null)
+                logger.severe("error loading card images, showing card numbers instead: " + error.getMessage());
+            EventQueue.invokeLater(() -> setVisible(true));
+        });
+    }
+
+    /**
+     * Wraps the players panel with a horizontal scroll bar when the players are wider than the table.
+     */
+    private JScrollPane playersScroll(PlayersPanel panel) {
+        JScrollPane scroll = new JScrollPane(panel, ScrollPaneConstants.VERTICAL_SCROLLBAR_NEVER,
+                ScrollPaneConstants.HORIZONTAL_SCROLLBAR_AS_NEEDED);
+        scroll.setBorder(BorderFactory.createEmptyBorder());
+        Dimension size = panel.getPreferredSize();
+        int width = Math.min(size.width, config.columns * config.cellWidth);
+        int bar = size.width > width ? scroll.getHorizontalScrollBar().getPreferredSize().height : 0;
+        scroll.setPreferredSize(new Dimension(width, size.height + bar));
+        scroll.getHorizontalScrollBar().setUnitIncrement(config.playerCellWidth / 4);
+        return scroll;
     }
 
     private class TimerPanel extends JPanel {
@@ -102,73 +126,61 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
 
     private class GamePanel extends JLayeredPane {
 
-        private final Image emptyCard;
-        private final Image[] deck;
-        private final Image[][] grid;
-        private final boolean[][][] playerTokens;
-        private final JLabel[][] tokenText;
-
-        private Image loadImageResource(String filename) {
-            URL imageResource = getClass().getClassLoader().getResource(filename);
-            if (imageResource == null)
-                throw new RuntimeException(new FileNotFoundException(filename));
-            return new ImageIcon(imageResource).getImage();
-        }
+        private static final int EMPTY = -1;
 
-        private GamePanel() {
+        private static final int GLYPH_GAP = 3;
 
-            setPreferredSize(new Dimension(config.columns * config.cellWidth, config.rows * config.cellHeight));
+        private final int[][] grid;
 
-            // init deck and load all pictures from png files
-            assert config.featureSize < 10; // otherwise there will be naming conflicts
+        /**
+         * The players with a token in each slot, a bitmask of tokenWords longs per slot.
+         * Token calls only flip bits and repaint the slot, the overlay is drawn when the slot is painted.
+         */
+        private final AtomicLongArray slotTokens;
+        private final int tokenWords;
 
-            // load the image resources
-            deck = new Image[config.deckSize];
-            for (int i = 0; i < config.deckSize; ++i)
-                deck[i] = loadImageResource("cards/" + intInBaseToPaddedString(i, config.featureCount, config.featureSize) + ".png");
-            emptyCard = loadImageResource("cards/empty_card.png");
+        /**
+         * The token glyph of each player (a colored tag with the player's name), drawn once and then reused.
+         */
+        private final Image[] glyphs;
 
-            grid = new Image[config.rows][config.columns];
-            tokenText = new JLabel[config.rows][config.columns];
-            playerTokens = new boolean[config.players][config.rows][config.columns];
-            for (int row = 0; row < config.rows; row++) {
-                for (int column = 0; column < config.columns; column++) {
-                    // init the cards on the table grid as empty cards
-                    grid[row][column] = emptyCard;
-
-                    // init the JLabel selection overlay
-                    tokenText[row][column] = new JLabel("");
-                    tokenText[row][column].setVerticalAlignment(JLabel.TOP);
-                    tokenText[row][column].setHorizontalAlignment(JLabel.CENTER);
-                    tokenText[row][column].setOpaque(false);
-                    tokenText[row][column].setBorder(BorderFactory.createLineBorder(Color.black));
-                    tokenText[row][column].setBounds((column * config.cellWidth), (row * config.cellHeight), config.cellWidth, config.cellHeight);
-                    add(tokenText[row][column]);
-                }
-            }
+        private final Font glyphFont = new Font("SansSerif", Font.BOLD, 12);
+
+        private GamePanel() {
+
+            setPreferredSize(new Dimension(config.columns * config.cellWidth, config.rows * config.cellHeight));
+
+            grid = new int[config.rows][config.columns];
+            // init the cards on the table grid as empty cards
+            for (int[] row : grid)
+                Arrays.fill(row, EMPTY);
+            tokenWords = (config.players + 63) >>> 6;
+            slotTokens = new AtomicLongArray(config.tableSize * tokenWords);
+            glyphs = new Image[config.players];
         }
 
         private void placeCard(int slot, int card) {
             int row = slot / config.columns;
             int column = slot % config.columns;
-            grid[row][column] = deck[card];
-            validate();
-            repaint();
+            grid[row][column] = card;
+            repaintSlot(slot);
         }
 
         private void removeCard(int slot) {
             int row = slot / config.columns;
             int column = slot % config.columns;
-            grid[row][column] = emptyCard;
-            validate();
-            repaint();
+            grid[row][column] = EMPTY;
+            repaintSlot(slot);
         }
 
         private void placeToken(int player, int slot) {
-            int row = slot / config.columns;
-            int column = slot % config.columns;
-            playerTokens[player][row][column] = true;
-            tokenText[row][column].setText(generatePlayersTokenText(row, column));
+            int word = slot * tokenWords + (player >>> 6);
+            long bit = 1L << player;
+            long bits;
+            do {
+                bits = slotTokens.get(word);
+            } while (!slotTokens.compareAndSet(word, bits, bits | bit));
+            repaintSlot(slot);
         }
 
         private void removeTokens() {
@@ -177,38 +189,122 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
         }
 
         private void removeTokens(int slot) {
-            int row = slot / config.columns;
-            int column = slot % config.columns;
-            for (int player = 0; player < playerTokens.length; player++) {
-                playerTokens[player][row][column] = false;
-                tokenText[row][column].setText(generatePlayersTokenText(row, column));
-            }
+            for (int word = slot * tokenWords; word < (slot + 1) * tokenWords; word++)
+                slotTokens.set(word, 0);
+            repaintSlot(slot);
         }
 
         private void removeToken(int player, int slot) {
-            int row = slot / config.columns;
-            int column = slot % config.columns;
-            playerTokens[player][row][column] = false;
-            tokenText[row][column].setText(generatePlayersTokenText(row, column));
+            int word = slot * tokenWords + (player >>> 6);
+            long bit = 1L << player;
+            long bits;
+            do {
+                bits = slotTokens.get(word);
+            } while (!slotTokens.compareAndSet(word, bits, bits & ~bit));
+            repaintSlot(slot);
+        }
+
+        /**
+         * Asks to repaint a single slot (safe from any thread).
+         */
+        private void repaintSlot(int slot) {
+            repaint((slot % config.columns) * config.cellWidth, (slot / config.columns) * config.cellHeight,
+                    config.cellWidth, config.cellHeight);
+        }
+
+        /**
+         * Returns the token glyph of a player, drawing it the first time (called on the event dispatch thread).
+         */
+        private Image glyph(int player) {
+            if (glyphs[player] != null)
+                return glyphs[player];
+            FontMetrics metrics = getFontMetrics(glyphFont);
+            String name = config.playerNames[player];
+            int maxWidth = config.cellWidth - 2 * GLYPH_GAP;
+            while (name.length() > 1 && metrics.stringWidth(name) + 8 > maxWidth)
+                name = name.substring(0, name.length() - 1);
+            int width = Math.min(metrics.stringWidth(name) + 8, maxWidth);
+            int height = metrics.getHeight() + 2;
+            BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = image.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            // spread the hues of the players around the color wheel
+            g.setColor(Color.getHSBColor(player * 0.618034f % 1f, 0.65f, 0.8f));
+            g.fillRoundRect(0, 0, width, height, height / 2, height / 2);
+            g.setColor(Color.WHITE);
+            g.setFont(glyphFont);
+            g.drawString(name, 4, 1 + metrics.getAscent());
+            g.dispose();
+            return glyphs[player] = image;
         }
 
-        private String generatePlayersTokenText(int row, int column) {
-            String text = "";
-            for (int player = 0; player < config.players; player++) {
-                if (playerTokens[player][row][column])
-                    text = text.concat(config.playerNames[player] + ", ");
+        /**
+         * Draws the token glyphs of a slot from its top, wrapping into rows; what does not fit is shown as "+N".
+         */
+        private void paintTokens(Graphics g, int slot, int x, int y) {
+            int right = x + config.cellWidth - GLYPH_GAP, bottom = y + config.cellHeight - GLYPH_GAP;
+            int gx = x + GLYPH_GAP, gy = y + GLYPH_GAP, hidden = 0;
+            for (int word = 0; word < tokenWords; word++) {
+                for (long bits = slotTokens.get(slot * tokenWords + word); bits != 0; bits &= bits - 1) {
+                    Image glyph = glyph(word * 64 + Long.numberOfTrailingZeros(bits));
+                    int width = glyph.getWidth(null), height = glyph.getHeight(null);
+                    if (gx + width > right) {
+                        gx = x + GLYPH_GAP;
+                        gy += height + GLYPH_GAP;
+                    }
+                    if (hidden > 0 || gy + height > bottom) {
+                        hidden++;
+                        continue;
+                    }
+                    g.drawImage(glyph, gx, gy, null);
+                    gx += width + GLYPH_GAP;
+                }
             }
-            if (text.length() < 2)
-                return "";
-            return text.substring(0, text.length() - 2);
+            if (hidden > 0) {
+                g.setColor(Color.BLACK);
+                g.setFont(glyphFont);
+                g.drawString("+" + hidden, right - getFontMetrics(glyphFont).stringWidth("+" + hidden), bottom);
+            }
+        }
+
+        /**
+         * Paints a card without its image (when the images could not be loaded): a blank cell with the card number.
+         */
+        private void paintPlaceholder(Graphics g, int card, int x, int y) {
+            g.setColor(card == EMPTY ? Color.LIGHT_GRAY : Color.WHITE);
+            g.fillRect(x, y, config.cellWidth, config.cellHeight);
+            if (card == EMPTY)
+                return;
+            g.setColor(Color.BLACK);
+            g.setFont(glyphFont);
+            String label = Integer.toString(card);
+            g.drawString(label, x + (config.cellWidth - getFontMetrics(glyphFont).stringWidth(label)) / 2, y + config.cellHeight / 2);
         }
 
         @Override
         public void paintComponent(Graphics g) {
-            // draw card images
+            // the window is shown only after the images were loaded (or failed to load)
+            if (!images.isDone())
+                return;
+            CardImages loaded = images.isCompletedExceptionally() ? null : images.join();
+
+            // draw card images and the tokens on them, only in the slots that need repainting
+            Rectangle clip = g.getClipBounds();
             for (int row = 0; row < config.rows; row++)
-                for (int column = 0; column < config.columns; column++)
-                    g.drawImage(grid[row][column], (column * config.cellWidth), (row * config.cellHeight), this);
+                for (int column = 0; column < config.columns; column++) {
+                    int x = column * config.cellWidth, y = row * config.cellHeight;
+                    if (clip != null && !clip.intersects(x, y, config.cellWidth, config.cellHeight))
+                        continue;
+                    int card = grid[row][column];
+                    if (loaded != null)
+                        g.drawImage(card == EMPTY ? loaded.emptyCard : loaded.cards[card], x, y, this);
+                    else
+                        paintPlaceholder(g, card, x, y);
+                    g.setColor(Color.BLACK);
+                    g.drawRect(x, y, config.cellWidth - 1, config.cellHeight - 1);
+                    paintTokens(g, row * config.columns + column, x, y);
+                }
         }
     }
 
@@ -326,7 +422,7 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
 
     @Override
     public void announceWinner(int[] players) {
-        playersPanel.setVisible(false);
+        playersScroll.setVisible(false);
         winnerPanel.announceWinner(players);
         winnerPanel.setVisible(true);
     }
@@ -23,6 +23,11 @@ public interface Util {
      */
     int[][] cardsToFeatures(int[] cards);
 
+    /**
+     * Returns the number of cards in a legal set under the game's set rule (see SetRule).
+     */
+    int setSize();
+
     /**
      * Checks if an array of cards forms a legal set.
      *
@@ -31,6 +36,17 @@ public interface Util {
      */
     boolean testSet(int[] cards);
 
+    /**
+     * Returns the card that makes a legal set with two other cards (under the classic rule with 3 choices for every
+     * feature, so a set is 3 cards and any two cards are completed by exactly one card).
+     *
+     * @param first  - a card id.
+     * @param second - another card id.
+     * @return - the id of the card completing the set, or -1 if the features do not have 3 choices or the set rule
+     *           is not the classic one.
+     */
+    int thirdCard(int first, int second);
+
     /**
      * Finds and returns up to count sets in the given collection of cards.
      *
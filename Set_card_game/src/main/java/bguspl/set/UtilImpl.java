@@ -1,10 +1,7 @@
 package bguspl.set;
 
-import java.util.Arrays;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
-import java.util.stream.IntStream;
 
 /**
  * The implementation of the UserInterface interface.
@@ -13,80 +10,72 @@ public class UtilImpl implements Util {
 
     private final Config config;
 
+    /**
+     * The features of every card and the packed cards, computed once.
+     */
+    private final PackedCards cards;
+
+    /**
+     * The set rule of the game, compiled once.
+     */
+    private final SetRule rule;
+
+    /**
+     * @throws IllegalArgumentException - if the configured set rule is invalid.
+     */
     public UtilImpl(Config config) {
         this.config = config;
+        this.cards = new PackedCards(config);
+        this.rule = compile(config.setRule, cards);
     }
 
-    private void cardToFeatures(int card, int[] features) {
-        for (int i = config.featureCount - 1; i >= 0; --i) {
-            features[i] = card % config.featureSize;
-            card /= config.featureSize;
+    /**
+     * Compiles a set rule (see SetRule for the syntax).
+     */
+    private static SetRule compile(String rule, PackedCards cards) {
+        switch (rule.trim().toLowerCase()) {
+            case "classic":
+                return FeatureSetRule.classic(cards);
+            case "ultra":
+                return new UltraSetRule(cards);
+            default:
+                return new FeatureSetRule(cards, rule.trim().toLowerCase().split("\\s*,\\s*"));
         }
     }
 
     @Override
     public int[] cardToFeatures(int card) {
-        int[] features = new int[config.featureCount];
-        cardToFeatures(card, features);
-        return features;
+        return cards.features[card].clone();
     }
 
     @Override
     public int[][] cardsToFeatures(int[] cards) {
-        int[][] features = new int[cards.length][config.featureCount];
-        IntStream.range(0, cards.length).forEach(i -> cardToFeatures(cards[i], features[i]));
+        int[][] features = new int[cards.length][];
+        for (int i = 0; i < cards.length; i++)
+            features[i] = this.cards.features[cards[i]].clone();
         return features;
     }
 
     @Override
-    public boolean testSet(int[] cards) {
-        int[][] features = cardsToFeatures(Arrays.copyOf(cards, cards.length));
-        for (int i = 0; i < config.featureCount; ++i) {
-            boolean sameSame = true, butDifferent = true;
-
-            // check if this features is sameSame in all cards
-            for (int j = 1; j < features.length; ++j)
-                if (features[0][i] != features[j][i]) {
-                    sameSame = false;
-                    break;
-                }
+    public int setSize() {
+        return rule.size();
+    }
 
-            // check if this feature is butDifferent in all cards
-            for (int j = 1; j < features.length; ++j)
-                for (int k = j; k < features.length; ++k)
-                    if (features[j - 1][i] == features[k][i]) {
-                        butDifferent = false;
-                        break;
-                    }
+    @Override
+    public boolean testSet(int[] cards) {
+        return rule.test(cards);
+    }
 
-            if (sameSame == butDifferent) return false;
-        }
-        return true;
+    @Override
+    public int thirdCard(int first, int second) {
+        return rule.completesPairs() ? cards.third(first, second) : -1;
     }
 
     @Override
     public List<int[]> findSets(List<Integer> deck, int count) {
-        LinkedList<int[]> sets = new LinkedList<>();
-        int n = deck.size();
-        int r = config.featureSize;
-        int[] combination = new int[r];
-
-        for (int i = 0; i < r; ++i)
-            combination[i] = i;
-
-        while (combination[r - 1] < deck.size()) {
-            int[] cards = Arrays.stream(combination).map(deck::get).sorted().toArray();
-            if (testSet(cards)) {
-                sets.add(cards);
-                if (sets.size() >= count) return sets;
-            }
-
-            // generate next combination in lexicographic order
-            int t = r - 1;
-            while (t != 0 && combination[t] == n - r + t) --t;
-            combination[t]++;
-            for (int i = t + 1; i < r; i++) combination[i] = combination[i - 1] + 1;
-        }
+        Object event = FlightEvents.beginFindSets();
+        List<int[]> sets = rule.findSets(deck, count);
+        FlightEvents.endFindSets(event, deck.size(), count, sets.size());
         return sets;
     }
 
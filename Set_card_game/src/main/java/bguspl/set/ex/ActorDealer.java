@@ -0,0 +1,179 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A dealer that runs the whole game on its own thread: it owns the table and the players' tokens, and the key
+ * presses reach it as commands through a lock-free mailbox. The players have no threads of their own (computer
+ * players keep their key generating threads), and no monitor is taken between a key press and its verdict.
+ * Claims submitted by submitClaim reach the dealer thread through the same mailbox and are checked in order with
+ * the key presses.
+ *
+ * @inv only the dealer thread changes the table and the players' chosen slots
+ */
+public class ActorDealer extends Dealer {
+
+    /**
+     * The slot of a command that checks the player's pending claim (see submitClaim).
+     */
+    private static final int CLAIM = Integer.MAX_VALUE;
+
+    /**
+     * The key presses and claims of all the players, each one is (player << 32 | slot).
+     */
+    private final Mailbox mailbox;
+
+    /**
+     * True iff the dealer thread may be parked waiting for commands.
+     */
+    private volatile boolean idle;
+
+    public ActorDealer(Env env, Table table, Player[] players) {
+        super(env, table, players);
+        // every player has at most legalSetSize presses and one claim in flight, so the mailbox is never full
+        this.mailbox = new Mailbox(env.config.players * (table.legalSetSize + 1));
+        table.dealerOwnsTokens();
+    }
+
+    @Override
+    boolean ownsSelections() {
+        return true;
+    }
+
+    /**
+     * Claims are checked as soon as they are made, there is never a backlog.
+     */
+    @Override
+    int claimBacklog() {
+        return 0;
+    }
+
+    @Override
+    boolean offerKey(int player, int slot) {
+        return post((long) player << 32 | slot);
+    }
+
+    /**
+     * Posts a command to the dealer thread, waking it if it is parked.
+     * @return - false if the mailbox is full.
+     */
+    private boolean post(long command) {
+        if (!mailbox.offer(command))
+            return false;
+        if (idle)
+            LockSupport.unpark(dealerThread);
+        return true;
+    }
+
+    @Override
+    protected void startPlayers() {
+        for (Player player : players)
+            player.startInput();
+    }
+
+    /**
+     * Handles the key presses until the next second of the countdown, parking when there are none.
+     */
+    @Override
+    protected void sleepUntilWokenOrTimeout() {
+        while (nextTime > System.currentTimeMillis() && !terminate) {
+            drainMailbox();
+            updateFreezeDisplays();
+            // close to the timeout the countdown shows milliseconds, do not park
+            if (reshuffleTime - nextTime < env.config.turnTimeoutWarningMillis)
+                return;
+            idle = true;
+            if (mailbox.isEmpty() && !terminate) {
+                long wake = Math.min(nextTime, nextFreezeUpdate());
+                LockSupport.parkNanos(this, (wake - System.currentTimeMillis()) * 1000000L);
+            }
+            idle = false;
+        }
+        drainMailbox();
+    }
+
+    private void drainMailbox() {
+        for (long command = mailbox.poll(); command != Mailbox.EMPTY; command = mailbox.poll()) {
+            Player player = players[(int) (command >>> 32)];
+            if ((int) command == CLAIM)
+                checkClaim(player);
+            else
+                keyPressed(player, (int) command);
+        }
+    }
+
+    /**
+     * Toggles the player's token on the slot, and checks the player's set once it has legalSetSize tokens.
+     */
+    private void keyPressed(Player player, int slot) {
+        player.inputTaken();
+        if (player.isFrozen())
+            return;
+        if (table.removeToken(player.id, slot))
+            return;
+        if (player.chosenSlots.size() >= table.legalSetSize || table.slotToCard[slot] == TableState.NONE)
+            return;
+        table.placeToken(player.id, slot, player);
+        if (player.chosenSlots.size() == table.legalSetSize)
+            claim(player);
+    }
+
+    private void claim(Player player) {
+        player.claimed();
+        Integer[] chosenSlots = player.getChosenSlots();
+        Verdict verdict = checkSet(chosenSlots, player.id);
+        if (verdict == Verdict.SET)
+            setFound(chosenSlots);
+        player.applyVerdict(verdict);
+    }
+
+    /**
+     * Checks the player's pending claim on its current chosen slots, and completes its future.
+     */
+    private void checkClaim(Player player) {
+        PendingClaims.Claim claim = pendingClaims.take(player.id);
+        if (claim == null || !claim.check())
+            return;
+        Integer[] chosenSlots = player.getChosenSlots();
+        Verdict verdict = checkSet(chosenSlots, player.id);
+        if (verdict == Verdict.SET)
+            setFound(chosenSlots);
+        claim.complete(verdict);
+    }
+
+    /**
+     * Posts the claim to the dealer thread, which checks it in order with the key presses.
+     * @param pressTime - unused, the claims are checked in the order they are posted.
+     */
+    @Override
+    public CompletableFuture<Verdict> submitClaim(int player, long pressTime) {
+        PendingClaims.Claim claim = new PendingClaims.Claim();
+        try {
+            // a claim that takes over a timed out one is checked by the command already in the mailbox
+            if (pendingClaims.open(player, claim, env.config.claimTimeoutMillis) && !post((long) player << 32 | CLAIM)) {
+                pendingClaims.take(player);
+                claim.completeExceptionally(new IllegalStateException("the mailbox of the dealer is full"));
+            }
+        } catch (IllegalStateException e) {
+            claim.completeExceptionally(e);
+        }
+        return claim;
+    }
+
+    @Override
+    public void terminate() {
+        for (int i = players.length - 1; i >= 0; i--) {
+            players[i].terminate();
+            try {
+                players[i].joinInput();
+            } catch (InterruptedException ignored) {}
+        }
+        terminate = true;
+        LockSupport.unpark(dealerThread);
+        // the claims still in the mailbox are never checked
+        pendingClaims.cancelAll();
+    }
+}
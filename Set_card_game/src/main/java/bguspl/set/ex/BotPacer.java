@@ -0,0 +1,99 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.function.IntSupplier;
+
+/**
+ * Paces the key presses of a computer player with a token bucket. The bucket fills at the bot's press rate, which
+ * is adapted once a second towards the configured claims per second (BotClaimsPerSecond) without going over
+ * BotPressesPerSecond, and is divided by one plus the claims waiting for the dealer, so bots back off while the
+ * dealer is behind. Used only by the bot's thread.
+ */
+class BotPacer {
+
+    private static final long SECOND_NANOS = 1000000000L;
+
+    /**
+     * The press rate bounds when adapting to a claims target without a configured maximum.
+     */
+    private static final double MIN_RATE = 0.5, MAX_RATE = 1000;
+
+    private final Env env;
+    private final Scoreboard scoreboard;
+    private final int player;
+    private final int burst;
+
+    /**
+     * The claims waiting for the dealer's verdict.
+     */
+    private final IntSupplier backlog;
+
+    /**
+     * The current press rate (presses per second) and the presses that may be made now.
+     */
+    private double rate;
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * The start of the current second and the bot's claims at that time.
+     */
+    private long windowStart;
+    private long windowClaims;
+
+    /**
+     * @param burst   - the presses that may be made at once (the bucket size).
+     * @param backlog - the claims waiting for the dealer's verdict.
+     */
+    BotPacer(Env env, Scoreboard scoreboard, int player, int burst, IntSupplier backlog) {
+        this.env = env;
+        this.scoreboard = scoreboard;
+        this.player = player;
+        this.burst = burst;
+        this.backlog = backlog;
+        this.tokens = burst;
+        this.lastRefill = this.windowStart = System.nanoTime();
+        this.rate = maxRate();
+    }
+
+    /**
+     * Takes a press from the bucket.
+     * @return - 0 if the bot may press now, otherwise the nanoseconds to wait before asking again.
+     */
+    long nextPress() {
+        if (env.config.botPressesPerSecond <= 0 && env.config.botClaimsPerSecond <= 0)
+            return 0;
+        long now = System.nanoTime();
+        if (now - windowStart >= SECOND_NANOS)
+            adapt(now);
+        double effective = rate / (1 + backlog.getAsInt());
+        tokens = Math.min(burst, tokens + (now - lastRefill) * effective / SECOND_NANOS);
+        lastRefill = now;
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return (long) ((1 - tokens) * SECOND_NANOS / effective) + 1;
+    }
+
+    /**
+     * Scales the press rate by how far the bot's claims in the last second were from the target (at most by 2).
+     */
+    private void adapt(long now) {
+        double target = env.config.botClaimsPerSecond;
+        if (target > 0) {
+            long claims = scoreboard.stats(player).claims;
+            double actual = (claims - windowClaims) * (double) SECOND_NANOS / (now - windowStart);
+            double factor = actual <= 0 ? 2 : Math.max(0.5, Math.min(2, target / actual));
+            rate = Math.max(MIN_RATE, Math.min(maxRate(), rate * factor));
+            windowClaims = claims;
+        } else
+            rate = maxRate();
+        windowStart = now;
+    }
+
+    private double maxRate() {
+        return env.config.botPressesPerSecond > 0 ? env.config.botPressesPerSecond : MAX_RATE;
+    }
+}
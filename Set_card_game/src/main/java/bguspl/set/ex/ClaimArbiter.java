@@ -0,0 +1,53 @@
+package bguspl.set.ex;
+
+/**
+ * This interface decides the order in which the dealer checks the players' set claims.
+ * Every player has at most one pending claim (it waits for the dealer's verdict before claiming again).
+ */
+public interface ClaimArbiter {
+
+    /**
+     * Submits a set claim of a player, called by the player thread.
+     * @param player    - the id of the player.
+     * @param pressTime - the time (System.nanoTime) of the key press that completed the claimed set.
+     *
+     * @pre - the player has no pending claim.
+     */
+    void submit(int player, long pressTime);
+
+    /**
+     * Removes the next claim to check according to the arbitration policy, called by the dealer thread.
+     * @return - the id of the player that made the claim, or -1 if there are no pending claims.
+     */
+    int next();
+
+    /**
+     * Returns the number of pending claims.
+     */
+    int size();
+
+    /**
+     * Returns true iff there are no pending claims.
+     */
+    boolean isEmpty();
+
+    /**
+     * Creates an arbiter according to a configured policy name.
+     * @param policy  - "fifo" (by submit time), "earliest-press" (by key press time) or "round-robin".
+     * @param players - the number of players.
+     * @return - the arbiter for the policy.
+     * @throws IllegalArgumentException - if the policy is unknown.
+     */
+    static ClaimArbiter create(String policy, int players) {
+        switch (policy.trim().toLowerCase()) {
+            case "fifo":
+                return new FifoClaimArbiter(players);
+            case "earliest-press":
+                return new EarliestPressClaimArbiter(players);
+            case "round-robin":
+                return new RoundRobinClaimArbiter(players);
+            default:
+                throw new IllegalArgumentException("unknown claim policy: " + policy);
+        }
+    }
+}
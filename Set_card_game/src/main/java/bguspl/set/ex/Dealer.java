@@ -1,11 +1,18 @@
 package bguspl.set.ex;
 
+import bguspl.set.Config;
 import bguspl.set.Env;
+import bguspl.set.FlightEvents;
+import bguspl.set.MatchResult;
+import bguspl.set.ThreadLogger;
+import bguspl.set.ThreadProfiler;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 import java.lang.Math;
 
 /**
@@ -16,16 +23,16 @@ public class Dealer implements Runnable {
     /**
      * The game environment object.
      */
-    private final Env env;
+    protected final Env env;
 
     /**
      * Game entities.
      */
-    private final Table table;
-    private final Player[] players;
+    protected final Table table;
+    protected final Player[] players;
 
     /**
-     * The list of card ids that are left in the dealer's deck.
+     * The list of card ids that are left in the dealer's deck (kept in the table's state).
      */
     protected final List<Integer> deck;
 
@@ -37,18 +44,48 @@ public class Dealer implements Runnable {
     /**
      * The time when the dealer needs to reshuffle the deck due to turn timeout.
      */
-    private long reshuffleTime = Long.MAX_VALUE;
+    protected long reshuffleTime = Long.MAX_VALUE;
 
     /**
      * The time when the dealer needs to update the Timer.
      */
-    private long nextTime;
+    protected long nextTime;
+
+    /**
+     * The time the presenter showed the latest deal, the turn timer starts then (null once it started).
+     */
+    private CompletableFuture<Long> dealShown;
 
     /**
      * The dealer thread.
      */
     protected Thread dealerThread;
 
+    /**
+     * Writes the periodic game snapshots (null if snapshots are disabled).
+     */
+    private final SnapshotWriter snapshots;
+
+    /**
+     * The time the game started.
+     */
+    private long gameStartTime;
+
+    /**
+     * Profiles the game threads (null if profiling is disabled).
+     */
+    final ThreadProfiler profiler;
+
+    /**
+     * The player whose set is being replaced on the table, -1 otherwise (for the flight recorder).
+     */
+    private int verdictPlayer = -1;
+
+    /**
+     * The verdict futures of the claims in the table's claim arbiter.
+     */
+    final PendingClaims pendingClaims;
+
 
 
 
@@ -56,7 +93,14 @@ public class Dealer implements Runnable {
         this.env = env;
         this.table = table;
         this.players = players;
-        this.deck = IntStream.range(0, env.config.deckSize).boxed().collect(Collectors.toList());
+        table.seatPlayers(players);
+        this.pendingClaims = new PendingClaims(players.length);
+        this.deck = table.state.deck;
+        this.snapshots = env.config.snapshotFile.isEmpty() ? null
+                : new SnapshotWriter(env.logger, Paths.get(env.config.snapshotFile), env.config.snapshotIntervalMillis);
+        this.profiler = env.config.profileThreads ? new ThreadProfiler(env.config.profileSampleMillis) : null;
+        if (profiler != null)
+            profiler.nameMonitor(table, "table");
     }
 
     /**
@@ -65,21 +109,36 @@ public class Dealer implements Runnable {
     @Override
     public void run() {
         this.dealerThread = Thread.currentThread();
-        env.logger.log(Level.INFO, "Thread " + Thread.currentThread().getName() + " starting.");
-        for(int i = 0; i < env.config.players; i++){
-            players[i].initializeThread();
-            players[i].getThread().start(); 
-        }
+        this.gameStartTime = System.currentTimeMillis();
+        GameMetrics.INSTANCE.gameStarted(table, players);
+        ThreadLogger.logStart(env.logger, profiler);
+        startPlayers();
 
         while (!shouldFinish()) {
+            env.refreshConfig();
             placeCardsOnTable();
             timerLoop();
             updateTimerDisplay(true);
-            removeAllCardsFromTable();
+            table.events.publish(GameEvent.Type.ROUND_ENDED, -1, -1, -1, 0);
+            reshuffle();
         }
+        cancelClaims();
+        boolean finished = !terminate;
+        // a finished game has nothing to restore, a terminated one keeps its last snapshot
+        if (snapshots != null)
+            snapshots.close(finished);
+        table.presenter.close();
         announceWinners();
         terminate();
-        env.logger.log(Level.INFO, "Thread " + Thread.currentThread().getName() + " terminated.");
+        table.events.publish(GameEvent.Type.GAME_ENDED, -1, -1, -1, 0);
+        table.events.close();
+        GameMetrics.INSTANCE.gameEnded(table, players);
+        if (finished && env.matchStore != null)
+            recordMatch();
+        ThreadLogger.logStop(env.logger, profiler);
+        if (profiler != null)
+            env.logger.severe("thread profile:\n" + profiler.close());
+        table.release();
     }
 
 
@@ -91,15 +150,113 @@ public class Dealer implements Runnable {
         if(env.config.hints)
             table.hints();
         env.ui.setCountdown(env.config.turnTimeoutMillis, false);
-        nextTime = System.currentTimeMillis() + Table.oneSecondsInMillis;
-        reshuffleTime = System.currentTimeMillis() + env.config.turnTimeoutMillis;
+        table.events.publish(GameEvent.Type.ROUND_STARTED, -1, -1, -1, env.config.turnTimeoutMillis);
+        restartTimer();
         while (!terminate && System.currentTimeMillis() < reshuffleTime) {
             sleepUntilWokenOrTimeout();
             updateTimerDisplay(false);
+            updateFreezeDisplays();
             placeCardsOnTable();
+            if (snapshots != null && snapshots.due())
+                snapshots.write(snapshot());
+        }
+    }
+
+    /**
+     * Starts the players' threads.
+     */
+    protected void startPlayers() {
+        for(int i = 0; i < env.config.players; i++){
+            players[i].initializeThread();
+            players[i].getThread().start(); 
         }
     }
 
+    /**
+     * Checks that the game entities of a configuration can be created: a known engine and claim policy, and a table
+     * and a deck that fit the table's state.
+     * @throws IllegalArgumentException - if one of them cannot be created.
+     */
+    public static void checkConfig(Config config) {
+        switch (config.engine.trim().toLowerCase()) {
+            case "threads":
+            case "actor":
+            case "pool":
+                break;
+            default:
+                throw new IllegalArgumentException("unknown engine: " + config.engine);
+        }
+        ClaimArbiter.create(config.claimPolicy, config.players);
+        TableState.checkSize(config.tableSize, config.deckSize);
+    }
+
+    /**
+     * Creates the dealer of the configured game engine.
+     * @return - an ActorDealer for the "actor" engine, a PooledDealer for the "pool" engine, a Dealer for the
+     * "threads" engine.
+     * @throws IllegalArgumentException - if the engine is unknown.
+     */
+    public static Dealer create(Env env, Table table, Player[] players) {
+        switch (env.config.engine.trim().toLowerCase()) {
+            case "threads":
+                return new Dealer(env, table, players);
+            case "actor":
+                return new ActorDealer(env, table, players);
+            case "pool":
+                return new PooledDealer(env, table, players);
+            default:
+                throw new IllegalArgumentException("unknown engine: " + env.config.engine);
+        }
+    }
+
+    /**
+     * Returns true iff the dealer thread owns the players' chosen slots and takes their key presses (see offerKey).
+     */
+    boolean ownsSelections() {
+        return false;
+    }
+
+    /**
+     * Returns the number of set claims waiting for the dealer's verdict.
+     */
+    int claimBacklog() {
+        return table.PlayersWithSet.size();
+    }
+
+    /**
+     * Submits a set claim of a player, the claimed cards are the player's chosen slots when the dealer checks it.
+     * @param pressTime - the time (System.nanoTime) of the key press that completed the claimed set.
+     * @return - the future of the verdict, completed by the dealer thread; it fails with a TimeoutException after
+     * ClaimTimeoutSeconds and is cancelled if the table is cleared before the claim is checked (see PendingClaims).
+     */
+    public CompletableFuture<Verdict> submitClaim(int player, long pressTime) {
+        PendingClaims.Claim claim = new PendingClaims.Claim();
+        try {
+            if (pendingClaims.open(player, claim, env.config.claimTimeoutMillis))
+                table.PlayersWithSet.submit(player, pressTime);
+        } catch (IllegalStateException e) {
+            claim.completeExceptionally(e);
+            return claim;
+        }
+        dealerThread.interrupt();
+        return claim;
+    }
+
+    /**
+     * Cancels every claim waiting in the claim arbiter, called by the dealer thread when the table is cleared.
+     */
+    private void cancelClaims() {
+        pendingClaims.cancel(table.PlayersWithSet);
+    }
+
+    /**
+     * Passes a key press to the dealer, when it owns the players' chosen slots.
+     * @return - true iff the key press was accepted.
+     */
+    boolean offerKey(int player, int slot) {
+        return false;
+    }
+
     /**
      * Called when the game should be terminated due to an external event.
      */
@@ -129,44 +286,58 @@ public class Dealer implements Runnable {
      */
     protected void placeCardsOnTable() {
         int cardsToAdd = env.config.tableSize - table.countCards();
-        if(cardsToAdd > 0) 
-            shuffle(deck);
-            synchronized(table){
-                List<Integer> tableCopy = randomTableSlots();
-                int index;
-                while(deck.isEmpty() == false & cardsToAdd != 0){
-                    Integer card = deck.get(0);
-                    for(int i = 0; i < env.config.tableSize; i++){
-                        index = tableCopy.get(i);
-                        if(table.slotToCard[index] == null){
-                            table.placeCard(card, index);
-                            deck.remove(card);
-                            break;
-                        }  
-                    }  
-                    cardsToAdd--;
+        if(cardsToAdd <= 0 || deck.isEmpty())
+            return;
+        Object event = FlightEvents.beginPlaceCards();
+        shuffle(deck);
+        List<Integer> cards = cardsToDraw(cardsToAdd);
+        synchronized(table){
+            List<Integer> tableCopy = randomTableSlots();
+            int next = 0;
+            for(int i = 0; i < env.config.tableSize && next < cards.size(); i++){
+                int index = tableCopy.get(i);
+                if(table.slotToCard[index] == TableState.NONE){
+                    Integer card = cards.get(next++);
+                    table.placeCard(card, index);
+                    deck.remove(card);
                 }
             }
+        }
+        FlightEvents.endPlaceCards(event, verdictPlayer, cards.size(), deck.size());
+    }
+
+    /**
+     * Picks the cards to draw from the (shuffled) deck, so that the table has a set after they are placed if possible.
+     * @param count - the number of empty slots.
+     * @return - up to count cards: the ones that make a set on the table first, then the top of the deck.
+     */
+    private List<Integer> cardsToDraw(int count) {
+        List<Integer> cards = new ArrayList<>(table.setIndex.cardsForSet(deck, count));
+        for(int i = 0; i < deck.size() && cards.size() < count; i++)
+            if(!cards.contains(deck.get(i)))
+                cards.add(deck.get(i));
+        return cards;
     }
 
 
     /**
      * Sleep for a fixed amount of time or until the thread is awakened for some purpose.
      */
-    private void sleepUntilWokenOrTimeout() {    
+    protected void sleepUntilWokenOrTimeout() {    
          // Continuously check if the timer has expired or if the thread has been interrupted 
         while( nextTime > System.currentTimeMillis()){
              // Check for players with sets
             if(!table.PlayersWithSet.isEmpty())
                 checkSetRequests();
+            updateFreezeDisplays();
             try{ 
                 // If the timer is about to expire, the thread don't sleep
                 if(reshuffleTime - nextTime < env.config.turnTimeoutWarningMillis){
                     return;
                 }
-                // Otherwise, sleep until the timer expires or the thread is interrupted
+                // Otherwise, sleep until the timer expires, a freeze display changes or the thread is interrupted
                 else
-                    Thread.sleep(nextTime - System.currentTimeMillis());
+                    Thread.sleep(Math.min(nextTime, nextFreezeUpdate()) - System.currentTimeMillis());
             }catch(IllegalArgumentException ignored) {} catch(InterruptedException ignored){
                 // If the thread is interrupted, check for players with sets and continue sleeping
                 checkSetRequests();
@@ -174,11 +345,33 @@ public class Dealer implements Runnable {
         }
     }
 
+    /**
+     * Update the freeze display of every frozen player (ends freezes that are over).
+     */
+    protected void updateFreezeDisplays() {
+        long now = System.currentTimeMillis();
+        for (Player player : players)
+            player.updateFreeze(now);
+    }
+
+    /**
+     * Returns the earliest time a player's freeze display should be updated.
+     */
+    protected long nextFreezeUpdate() {
+        long now = System.currentTimeMillis();
+        long next = Long.MAX_VALUE;
+        for (Player player : players)
+            next = Math.min(next, player.nextFreezeUpdate(now));
+        return next;
+    }
+
     /**
      * Reset and/or update the countdown and the countdown display.
      */
     private void updateTimerDisplay(boolean reset) {
         if(!reset){
+            if (dealShown != null && !startTimer())
+                return;
             if(reshuffleTime - nextTime <= env.config.turnTimeoutWarningMillis)
                 env.ui.setCountdown(reshuffleTime - System.currentTimeMillis(), true); 
             else
@@ -186,15 +379,84 @@ public class Dealer implements Runnable {
             nextTime = nextTime + Table.oneSecondsInMillis;
 
         }
-        else{
-            nextTime = System.currentTimeMillis() + Table.oneSecondsInMillis;
-            reshuffleTime = System.currentTimeMillis() + env.config.turnTimeoutMillis;
-            env.ui.setCountdown(env.config.turnTimeoutMillis, false);
-        }
+        else
+            restartTimer();
+    }
 
+    /**
+     * Restarts the countdown, it runs once the presenter showed the cards dealt so far (see startTimer).
+     */
+    protected void restartTimer() {
+        dealShown = table.presenter.shown();
+        reshuffleTime = Long.MAX_VALUE;
+        nextTime = System.currentTimeMillis() + Table.oneSecondsInMillis;
+        env.ui.setCountdown(env.config.turnTimeoutMillis, false);
+    }
+
+    /**
+     * Starts the countdown from the time the deal was shown, the full countdown is shown until then.
+     * @return - true iff the countdown runs.
+     */
+    private boolean startTimer() {
+        if (!dealShown.isDone()) {
+            // check again after the next card is shown
+            nextTime = System.currentTimeMillis() + Math.max(1, Math.min(env.config.tableDelayMillis, Table.oneSecondsInMillis));
+            return false;
+        }
+        long shownAt = dealShown.join();
+        dealShown = null;
+        reshuffleTime = shownAt + env.config.turnTimeoutMillis;
+        nextTime = shownAt;
+        return true;
     }
     
 
+    /**
+     * Changes the table after a turn timeout: swaps only the cards needed for a set in partial reshuffle mode,
+     * otherwise (or if no swap can make a set) returns all the cards to the deck.
+     */
+    private void reshuffle() {
+        boolean partial = env.config.partialReshuffle && swapCardsForSet();
+        if (!partial)
+            removeAllCardsFromTable();
+        GameMetrics.INSTANCE.reshuffle(partial);
+    }
+
+    /**
+     * Swaps the fewest table cards with deck cards so that the table has a set, keeping the other cards and their tokens.
+     * Empty slots are filled first and the slots with the fewest tokens are swapped.
+     * @return - true iff the table has a set afterwards.
+     */
+    private boolean swapCardsForSet() {
+        if (table.countSets() > 0)
+            return true;
+        TableSetIndex.Swap swap = table.setIndex.swapForSet(deck);
+        if (swap == null)
+            return false;
+
+        synchronized(table){
+            int[] tokens = new int[env.config.tableSize];
+            for (int slot = 0; slot < tokens.length; slot++)
+                tokens[slot] = table.countTokens(slot);
+            List<Integer> candidates = randomTableSlots();
+            candidates.removeIf(slot -> table.slotToCard[slot] != TableState.NONE && swap.keep.contains((int) table.slotToCard[slot]));
+            candidates.sort(Comparator.comparingInt(slot -> table.slotToCard[slot] == TableState.NONE ? -1 : tokens[slot]));
+
+            int[] slots = new int[swap.cards.size()];
+            int[] cards = new int[swap.cards.size()];
+            for (int i = 0; i < slots.length; i++) {
+                slots[i] = candidates.get(i);
+                cards[i] = swap.cards.get(i);
+                deck.remove((Integer) cards[i]);
+            }
+            // swapping a card clears the tokens on it
+            for (Integer replaced : table.swapCards(slots, cards))
+                if (replaced != null)
+                    deck.add(replaced);
+        }
+        return true;
+    }
+
     /**
      * Returns all the cards from the table to the deck.
      */
@@ -202,30 +464,33 @@ public class Dealer implements Runnable {
 
         // Create a copy of the table slots in random order
         List<Integer> tableCopy = randomTableSlots();
-        
+        Object event = FlightEvents.beginRemoveAllCards();
+        int removed = 0;
+        // the claims are about cards that are leaving the table
+        cancelClaims();
+
         synchronized(table){
             // Iterate over the table slots in "random way"
             for(int i = 0; i < env.config.tableSize; i++){
                 int index = tableCopy.get(i);
-                Integer card = table.slotToCard[tableCopy.get(i)];
-                if(card == null)
+                int card = table.slotToCard[tableCopy.get(i)];
+                if(card == TableState.NONE)
                     continue;
-                try { Thread.sleep(env.config.tableDelayMillis); } catch (InterruptedException ignored) {}
 
                 // Add the card to the deck, remove it from the table, and update the UI
+                removed++;
                 deck.add(card);
-                table.slotToCard[index] = null;
-                table.cardToSlot[card] = null;
-                env.ui.removeTokens(index);
-                env.ui.removeCard(index);
-
-
-                // Remove the slot from any player's chosen slots
-                for(Player player : players)
-                    if(player.chosenSlots.contains(index))
-                        player.chosenSlots.remove((Integer)index);
+                table.setIndex.remove(card);
+                table.events.publish(GameEvent.Type.CARD_REMOVED, -1, index, card, 0);
+                table.slotToCard[index] = TableState.NONE;
+                table.cardToSlot[card] = TableState.NONE;
+                // Remove the tokens, only the players that have one there are touched
+                table.clearTokens(index);
+                table.presenter.pause();
+                table.presenter.show(ui -> ui.removeCard(index));
             }
         }
+        FlightEvents.endRemoveAllCards(event, removed);
     }
 
     /**
@@ -235,20 +500,21 @@ public class Dealer implements Runnable {
      * @inv The number of players and their scores will not change
      */
     protected void announceWinners() {
+        Scoreboard.Stats[] stats = table.scoreboard.snapshot();
         List<Integer> winners = new ArrayList<>();
         winners.add(players[0].id);
-        int topScore = players[0].score();
+        int topScore = stats[0].score;
         for(int i = 1; i < env.config.players; i++){  
 
             // If the player has a higher score than the current top score, they become the sole winner
-            if(players[i].score() > topScore){
+            if(stats[i].score > topScore){
                 winners.clear();
-                topScore = players[i].score();
+                topScore = stats[i].score;
                 winners.add(players[i].id);
             }
 
             // If the player has the same score as the current top score, they are added to the list of winners
-            else if(players[i].score() == topScore)
+            else if(stats[i].score == topScore)
                 winners.add(players[i].id);
         }
         int[] winnersArray = new int[winners.size()];
@@ -261,80 +527,160 @@ public class Dealer implements Runnable {
 
 
 
+    /**
+     * Records the result of the finished game in the match store.
+     * @pre - the player threads were terminated.
+     */
+    private void recordMatch() {
+        Scoreboard.Stats[] stats = table.scoreboard.snapshot();
+        int topScore = 0;
+        for (Scoreboard.Stats player : stats)
+            topScore = Math.max(topScore, player.score);
+        String[] names = new String[players.length];
+        int[] sets = new int[players.length];
+        int[] penalties = new int[players.length];
+        long[] frozenMillis = new long[players.length];
+        boolean[] winners = new boolean[players.length];
+        for (int i = 0; i < players.length; i++) {
+            names[i] = env.config.playerNames[i];
+            sets[i] = stats[i].score;
+            penalties[i] = (int) stats[i].penalties;
+            frozenMillis[i] = stats[i].frozenMillis;
+            winners[i] = stats[i].score == topScore;
+        }
+        try {
+            env.matchStore.record(new MatchResult(gameStartTime, System.currentTimeMillis() - gameStartTime,
+                    names, sets, penalties, frozenMillis, winners));
+        } catch (IOException e) {
+            env.logger.log(Level.WARNING, "cannot record the match: " + e.getMessage());
+        }
+    }
+
     private void checkSetRequests() {
         // Get the next player with a set
-        int playerId;
-        try {
-            table.sem.acquire();
-        } catch (InterruptedException e) {}
-        if (table.PlayersWithSet.isEmpty()){
-            table.sem.release();
+        int playerId = table.PlayersWithSet.next();
+        if (playerId == -1)
+            return;
+        // a claim that timed out is not checked, one that is checked can no longer time out
+        PendingClaims.Claim claim = pendingClaims.take(playerId);
+        if (claim == null || !claim.check())
             return;
+
+        // Check if the player's chosen slots form a set (the players change their tokens under the table lock)
+        Integer[] chosenSlots;
+        synchronized (table) {
+            chosenSlots = players[playerId].getChosenSlots();
         }
-        playerId = table.PlayersWithSet.remove();
-        table.sem.release();
-        
-        // Check if the player's chosen slots form a set
-        synchronized(players[playerId]) {
-            Integer[] chosenSlots = players[playerId].getChosenSlots();
-            if (checkSet(chosenSlots, playerId)) {
-                // If a set is found, reset the timer and remove the chosen slots from all players who have chosen them
-                nextTime = System.currentTimeMillis() + Table.oneSecondsInMillis;
-                reshuffleTime = System.currentTimeMillis() + env.config.turnTimeoutMillis;
-                env.ui.setCountdown(env.config.turnTimeoutMillis, false);
-                for (Player player : players) {
-                    for (int slot : chosenSlots) {
-                        if (player.chosenSlots.contains(slot)) {
-                            player.chosenSlots.remove((Integer)slot);
-                        }
-                    }
-                }
-            }
+        Verdict verdict = checkSet(chosenSlots, playerId);
+        if (verdict == Verdict.SET)
+            setFound(chosenSlots);
         // Notify the player
-        players[playerId].notifyAll();
-        }
+        claim.complete(verdict);
     }
     
 
+    /**
+     * Resets the timer after a set was found (removing its cards already removed all the tokens on them).
+     * @param chosenSlots - the slots of the set.
+     */
+    protected void setFound(Integer[] chosenSlots) {
+        restartTimer();
+    }
+
      /**
      * Check if set is legal and handling what follows.
      * @post The cards in the slots specified by the ChosenSlots array will be checked to see if they form a legal set
      * @post If the cards form a legal set, they will be removed from the table and replaced with new cards
-     * @post The hadAset and shouldBePunished field of the player specified will be set to T or F depending on whether a legal set was found
+     * @post The verdict is SET if a legal set was found, STALE if one of the cards already left the table and NOT_A_SET otherwise
      * 
      * @inv The number of cards on the table will remain the same unless a legal set is found and removed
      * , in which case new cards will be added to the table if possible
      * 
      **/
-     public boolean checkSet(Integer[] ChosenSlots, int player){
+     public Verdict checkSet(Integer[] ChosenSlots, int player){
+       Object event = FlightEvents.beginCheckSet();
        //checking if all cards are still on the table or the request sent before we remove card
        for(int i = 0; i < ChosenSlots.length; i++){
             if(ChosenSlots[i] == null || table.getCardOfSlot(ChosenSlots[i]) == null){
-                players[player].hadAset = false;
-                return false;
+                verdict(event, player, -1);
+                return Verdict.STALE;
                 //no penalty needed
             }
         }
 
-       int[] chosenCards = new int[Table.legalSetSize];
+       int[] chosenCards = new int[table.legalSetSize];
        for(int i = 0; i < ChosenSlots.length; i++){
             chosenCards[i] = table.slotToCard[ChosenSlots[i]];
         }
 
         if(!env.util.testSet(chosenCards)){
-            players[player].hadAset = false;
-            players[player].shouldBePunished = true;
-            return false;
+            verdict(event, player, 0);
+            return Verdict.NOT_A_SET;
         }
 
+        verdict(event, player, 1);
         for(int slot :ChosenSlots)
             table.removeCard(slot);
+        verdictPlayer = player;
         placeCardsOnTable();
-        players[player].hadAset = true;
-        players[player].shouldBePunished = false;  
-        return true; 
+        verdictPlayer = -1;
+        return Verdict.SET;
      }
 
+    /**
+     * Reports the verdict on a claim to the event stream, the metrics and the flight recorder.
+     * @param event  - the flight recorder event begun when the check started (see FlightEvents).
+     * @param player - the player who made the claim.
+     * @param result - 1 for a set, 0 for a wrong set, -1 if the cards left the table.
+     */
+    private void verdict(Object event, int player, int result) {
+        long latency = System.nanoTime() - players[player].claimSubmitTime();
+        table.events.publish(GameEvent.Type.VERDICT, player, -1, -1, result);
+        GameMetrics.INSTANCE.verdict(result, latency);
+        FlightEvents.endCheckSet(event, player, result, latency);
+    }
+
+
+    /**
+     * Copies the game state, called by the dealer thread which is the only one changing the table and the deck.
+     * @return - the copy of the game state.
+     */
+    public GameSnapshot snapshot() {
+        int[] slotToCard = new int[env.config.tableSize];
+        int[] scores = new int[players.length];
+        int[][] chosenSlots = new int[players.length][];
+        // the players change their tokens under the table lock
+        synchronized (table) {
+            for (int slot = 0; slot < slotToCard.length; slot++)
+                slotToCard[slot] = table.slotToCard[slot];
+            for (int i = 0; i < players.length; i++) {
+                scores[i] = players[i].score();
+                chosenSlots[i] = players[i].chosenSlots.stream().mapToInt(Integer::intValue).toArray();
+            }
+        }
+        int[] deckCopy = deck.stream().mapToInt(Integer::intValue).toArray();
+        return new GameSnapshot(slotToCard, deckCopy, scores, chosenSlots);
+    }
+
+    /**
+     * Restores the game state from a snapshot, called before the dealer thread starts.
+     * @param snapshot - the snapshot to restore.
+     * @throws IllegalArgumentException - if the snapshot does not match the configured table or players.
+     * @post - the table, the deck and the players' scores and tokens are those of the snapshot.
+     */
+    public void restore(GameSnapshot snapshot) {
+        if (snapshot.tableSize() != env.config.tableSize || snapshot.players() != players.length)
+            throw new IllegalArgumentException("snapshot of " + snapshot.players() + " players and " + snapshot.tableSize()
+                    + " slots does not match the configuration");
+        deck.clear();
+        for (int card : snapshot.deck)
+            deck.add(card);
+        synchronized (table) {
+            table.restore(snapshot);
+            for (int i = 0; i < players.length; i++)
+                players[i].restore(snapshot.scores[i], snapshot.chosenSlots[i]);
+        }
+    }
 
      /**
       * Randoming the removig/placing card order
@@ -0,0 +1,16 @@
+package bguspl.set.ex;
+
+/**
+ * Checks first the claim whose last key was pressed first, regardless of when the player thread submitted it.
+ */
+class EarliestPressClaimArbiter extends SlotClaimArbiter {
+
+    EarliestPressClaimArbiter(int players) {
+        super(players);
+    }
+
+    @Override
+    protected long key(long submitTime, long pressTime) {
+        return pressTime;
+    }
+}
@@ -0,0 +1,16 @@
+package bguspl.set.ex;
+
+/**
+ * Checks the claims in the order they were submitted.
+ */
+class FifoClaimArbiter extends SlotClaimArbiter {
+
+    FifoClaimArbiter(int players) {
+        super(players);
+    }
+
+    @Override
+    protected long key(long submitTime, long pressTime) {
+        return submitTime;
+    }
+}
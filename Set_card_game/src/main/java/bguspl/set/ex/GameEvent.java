@@ -0,0 +1,59 @@
+package bguspl.set.ex;
+
+/**
+ * An event of a running game, published by the table's event publisher (see GameEventPublisher).
+ * Fields that do not apply to the event type are -1.
+ */
+public class GameEvent {
+
+    public enum Type {
+        /** A card was placed in a slot (slot, card). */
+        CARD_PLACED,
+        /** A card was removed from a slot (slot, card). */
+        CARD_REMOVED,
+        /** A player placed a token (player, slot). */
+        TOKEN_PLACED,
+        /** A player removed a token (player, slot). */
+        TOKEN_REMOVED,
+        /** All the tokens in a slot were removed (slot). */
+        TOKENS_CLEARED,
+        /** A player claimed a set (player). */
+        CLAIM_SUBMITTED,
+        /** The dealer checked a claim (player, value: 1 for a set, 0 for a wrong set, -1 if the cards changed). */
+        VERDICT,
+        /** A player was frozen (player, value: the freeze time in milliseconds). */
+        FREEZE,
+        /** A round started (value: the turn timeout in milliseconds). */
+        ROUND_STARTED,
+        /** A round ended and the table is reshuffled. */
+        ROUND_ENDED,
+        /** The game ended, this is the last event. */
+        GAME_ENDED
+    }
+
+    public final Type type;
+
+    /**
+     * The time (in millis since the epoch) of the event.
+     */
+    public final long timeMillis;
+
+    public final int player;
+    public final int slot;
+    public final int card;
+    public final long value;
+
+    public GameEvent(Type type, int player, int slot, int card, long value) {
+        this.type = type;
+        this.timeMillis = System.currentTimeMillis();
+        this.player = player;
+        this.slot = slot;
+        this.card = card;
+        this.value = value;
+    }
+
+    @Override
+    public String toString() {
+        return type + " player=" + player + " slot=" + slot + " card=" + card + " value=" + value;
+    }
+}
@@ -0,0 +1,245 @@
+package bguspl.set.ex;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the events of a game to subscribers, following the reactive streams protocol (as java.util.concurrent.Flow):
+ * a subscriber gets events only as it requests them, and they are delivered on the executor, never on a game thread.
+ *
+ * Every subscriber has a bounded buffer. Publishing never blocks: when the buffer of a slow subscriber is full the
+ * subscriber is either disconnected (with an error) or the new events are dropped, so it only sees a sample of them.
+ */
+public class GameEventPublisher {
+
+    public interface Subscriber {
+
+        /**
+         * Called once before any other method, with the subscription used to request events.
+         */
+        void onSubscribe(Subscription subscription);
+
+        void onNext(GameEvent event);
+
+        /**
+         * Called when the subscription ends with an error (e.g. the subscriber was disconnected for being too slow).
+         */
+        void onError(Throwable error);
+
+        /**
+         * Called after the last event of the game.
+         */
+        void onComplete();
+    }
+
+    public interface Subscription {
+
+        /**
+         * Requests n more events.
+         */
+        void request(long n);
+
+        /**
+         * Stops receiving events.
+         */
+        void cancel();
+    }
+
+    /**
+     * What to do when the buffer of a subscriber is full.
+     */
+    public enum Overflow {
+        /** Disconnect the subscriber with an error. */
+        DISCONNECT,
+        /** Drop the new events until the subscriber catches up. */
+        SAMPLE
+    }
+
+    private final Executor executor;
+    private final CopyOnWriteArrayList<EventSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private volatile boolean closed;
+
+    public GameEventPublisher() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param executor - the executor the events are delivered on.
+     */
+    public GameEventPublisher(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Subscribes to the events of the game.
+     * @param subscriber - the subscriber.
+     * @param bufferSize - the maximum number of events waiting for the subscriber.
+     * @param overflow   - what to do when the buffer is full.
+     */
+    public void subscribe(Subscriber subscriber, int bufferSize, Overflow overflow) {
+        EventSubscription subscription = new EventSubscription(subscriber, Math.max(1, bufferSize), overflow);
+        subscriptions.add(subscription);
+        if (closed)
+            subscription.complete();
+        subscription.signal();
+    }
+
+    /**
+     * Returns true iff there are subscribers (publishing without any costs nothing).
+     */
+    public boolean hasSubscribers() {
+        return !subscriptions.isEmpty();
+    }
+
+    /**
+     * Publishes an event to all the subscribers, without blocking.
+     */
+    public void publish(GameEvent.Type type, int player, int slot, int card, long value) {
+        if (subscriptions.isEmpty())
+            return;
+        GameEvent event = new GameEvent(type, player, slot, card, value);
+        for (EventSubscription subscription : subscriptions)
+            subscription.offer(event);
+    }
+
+    /**
+     * Completes all the subscriptions after their buffered events were delivered.
+     */
+    public void close() {
+        closed = true;
+        for (EventSubscription subscription : subscriptions)
+            subscription.complete();
+    }
+
+    private class EventSubscription implements Subscription, Runnable {
+
+        private final Subscriber subscriber;
+        private final int capacity;
+        private final Overflow overflow;
+
+        private final Queue<GameEvent> buffer = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicLong demand = new AtomicLong();
+
+        /**
+         * The number of signals not handled yet by the delivery loop, which runs while it is positive.
+         */
+        private final AtomicInteger work = new AtomicInteger();
+
+        private volatile boolean cancelled;
+        private volatile boolean completed;
+        private volatile Throwable error;
+
+        /**
+         * Only accessed by the delivery loop.
+         */
+        private boolean subscribed;
+        private boolean terminated;
+
+        EventSubscription(Subscriber subscriber, int capacity, Overflow overflow) {
+            this.subscriber = subscriber;
+            this.capacity = capacity;
+            this.overflow = overflow;
+        }
+
+        void offer(GameEvent event) {
+            if (cancelled || completed)
+                return;
+            if (size.incrementAndGet() > capacity) {
+                size.decrementAndGet();
+                if (overflow == Overflow.DISCONNECT) {
+                    error = new IllegalStateException("subscriber too slow, " + capacity + " events are waiting");
+                    subscriptions.remove(this);
+                    signal();
+                }
+                return;
+            }
+            buffer.offer(event);
+            signal();
+        }
+
+        void complete() {
+            completed = true;
+            signal();
+        }
+
+        void signal() {
+            if (work.getAndIncrement() == 0)
+                executor.execute(this);
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException("non-positive request: " + n);
+                subscriptions.remove(this);
+            } else
+                demand.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+            signal();
+        }
+
+        /**
+         * The delivery loop, runs on the executor and never in parallel with itself.
+         */
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                if (!subscribed) {
+                    subscribed = true;
+                    subscriber.onSubscribe(this);
+                }
+                if (!terminated)
+                    deliver();
+                missed = work.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void deliver() {
+            if (cancelled) {
+                terminate();
+                return;
+            }
+            if (error != null) {
+                terminate();
+                subscriber.onError(error);
+                return;
+            }
+            GameEvent event;
+            while (demand.get() > 0 && !cancelled && (event = buffer.poll()) != null) {
+                size.decrementAndGet();
+                demand.decrementAndGet();
+                try {
+                    subscriber.onNext(event);
+                } catch (RuntimeException e) {
+                    cancelled = true;
+                    terminate();
+                    subscriber.onError(e);
+                    return;
+                }
+            }
+            if (completed && buffer.isEmpty()) {
+                terminate();
+                subscriber.onComplete();
+            }
+        }
+
+        private void terminate() {
+            terminated = true;
+            subscriptions.remove(this);
+            buffer.clear();
+        }
+    }
+}
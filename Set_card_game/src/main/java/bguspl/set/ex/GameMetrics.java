@@ -0,0 +1,176 @@
+package bguspl.set.ex;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The process wide counters of all the running games, exported in the Prometheus text format.
+ * Games only add to striped counters, exporting reads them without locking any game state.
+ */
+public final class GameMetrics {
+
+    /**
+     * The upper bounds (in seconds) of the verdict latency histogram buckets.
+     */
+    private static final double[] LATENCY_BUCKETS = {0.0001, 0.0005, 0.001, 0.005, 0.01, 0.05, 0.1, 0.5, 1, 5};
+    private static final String[] LATENCY_LABELS = {"0.0001", "0.0005", "0.001", "0.005", "0.01", "0.05", "0.1", "0.5", "1", "5", "+Inf"};
+
+    /**
+     * The metrics of this process.
+     */
+    public static final GameMetrics INSTANCE = new GameMetrics();
+
+    private final AtomicInteger activeTables = new AtomicInteger();
+    private final AtomicLong tableStateBytes = new AtomicLong();
+    private final AtomicInteger activePlayers = new AtomicInteger();
+    private final LongAdder games = new LongAdder();
+    private final LongAdder claims = new LongAdder();
+    private final LongAdder validSets = new LongAdder();
+    private final LongAdder wrongSets = new LongAdder();
+    private final LongAdder staleClaims = new LongAdder();
+    private final LongAdder penalties = new LongAdder();
+    private final LongAdder fullReshuffles = new LongAdder();
+    private final LongAdder partialReshuffles = new LongAdder();
+    private final LongAdder cardsDealt = new LongAdder();
+
+    private final LongAdder[] latencyBuckets = new LongAdder[LATENCY_BUCKETS.length + 1];
+    private final LongAdder latencyNanos = new LongAdder();
+
+    /**
+     * The claim arbiters of the running tables, for the claim backlog.
+     */
+    private final Map<ClaimArbiter, Boolean> arbiters = new ConcurrentHashMap<>();
+
+    /**
+     * The players of the running tables, for their key queue depth.
+     */
+    private final Map<Player[], Boolean> players = new ConcurrentHashMap<>();
+
+    private GameMetrics() {
+        for (int i = 0; i < latencyBuckets.length; i++)
+            latencyBuckets[i] = new LongAdder();
+    }
+
+    /**
+     * Called by the dealer thread when a game starts.
+     */
+    void gameStarted(Table table, Player[] players) {
+        activeTables.incrementAndGet();
+        tableStateBytes.addAndGet(table.state.bytes());
+        activePlayers.addAndGet(players.length);
+        arbiters.put(table.PlayersWithSet, Boolean.TRUE);
+        this.players.put(players, Boolean.TRUE);
+    }
+
+    /**
+     * Called by the dealer thread when a game ends.
+     */
+    void gameEnded(Table table, Player[] players) {
+        this.players.remove(players);
+        arbiters.remove(table.PlayersWithSet);
+        activePlayers.addAndGet(-players.length);
+        activeTables.decrementAndGet();
+        tableStateBytes.addAndGet(-table.state.bytes());
+        games.increment();
+    }
+
+    void claim() {
+        claims.increment();
+    }
+
+    /**
+     * Counts a verdict of the dealer.
+     * @param result       - 1 for a set, 0 for a wrong set, -1 if the cards changed.
+     * @param latencyNanos - the time from the claim's submission to the verdict.
+     */
+    void verdict(int result, long latencyNanos) {
+        (result > 0 ? validSets : result == 0 ? wrongSets : staleClaims).increment();
+        this.latencyNanos.add(latencyNanos);
+        double seconds = latencyNanos / 1e9;
+        int bucket = 0;
+        while (bucket < LATENCY_BUCKETS.length && seconds > LATENCY_BUCKETS[bucket])
+            bucket++;
+        latencyBuckets[bucket].increment();
+    }
+
+    void penalty() {
+        penalties.increment();
+    }
+
+    void reshuffle(boolean partial) {
+        (partial ? partialReshuffles : fullReshuffles).increment();
+    }
+
+    void cardDealt() {
+        cardsDealt.increment();
+    }
+
+    /**
+     * Returns all the metrics in the Prometheus text exposition format.
+     */
+    public String export() {
+        StringBuilder sb = new StringBuilder(4096);
+        gauge(sb, "set_tables_active", "Games currently running.", activeTables.get());
+        gauge(sb, "set_players_active", "Players in the games currently running.", activePlayers.get());
+        gauge(sb, "set_table_state_bytes", "Heap taken by the table state arrays of the games currently running.",
+                tableStateBytes.get());
+        counter(sb, "set_games_total", "Games that ended.", games.sum());
+        counter(sb, "set_claims_total", "Set claims submitted by players.", claims.sum());
+        sb.append("# HELP set_verdicts_total Claims checked by the dealer, by result.\n# TYPE set_verdicts_total counter\n");
+        sb.append("set_verdicts_total{result=\"set\"} ").append(validSets.sum()).append('\n');
+        sb.append("set_verdicts_total{result=\"wrong\"} ").append(wrongSets.sum()).append('\n');
+        sb.append("set_verdicts_total{result=\"stale\"} ").append(staleClaims.sum()).append('\n');
+        counter(sb, "set_penalties_total", "Penalties given to players.", penalties.sum());
+        sb.append("# HELP set_reshuffles_total Table reshuffles after a turn timeout, by mode.\n# TYPE set_reshuffles_total counter\n");
+        sb.append("set_reshuffles_total{mode=\"full\"} ").append(fullReshuffles.sum()).append('\n');
+        sb.append("set_reshuffles_total{mode=\"partial\"} ").append(partialReshuffles.sum()).append('\n');
+        counter(sb, "set_cards_dealt_total", "Cards placed on tables.", cardsDealt.sum());
+
+        int backlog = 0;
+        for (ClaimArbiter arbiter : arbiters.keySet())
+            backlog += arbiter.size();
+        gauge(sb, "set_claim_backlog", "Claims waiting for the dealers' verdicts.", backlog);
+
+        int queued = 0, deepest = 0;
+        for (Player[] table : players.keySet())
+            for (Player player : table) {
+                if (player == null) continue;
+                int depth = player.keyPressedQueue.size();
+                queued += depth;
+                deepest = Math.max(deepest, depth);
+            }
+        gauge(sb, "set_player_key_queue_depth", "Key presses waiting in the players' queues.", queued);
+        gauge(sb, "set_player_key_queue_depth_max", "Key presses waiting in the fullest player queue.", deepest);
+
+        sb.append("# HELP set_verdict_latency_seconds Time from a claim's submission to the dealer's verdict.\n");
+        sb.append("# TYPE set_verdict_latency_seconds histogram\n");
+        long cumulative = 0;
+        for (int i = 0; i < latencyBuckets.length; i++) {
+            cumulative += latencyBuckets[i].sum();
+            sb.append("set_verdict_latency_seconds_bucket{le=\"").append(LATENCY_LABELS[i]).append("\"} ").append(cumulative).append('\n');
+        }
+        sb.append("set_verdict_latency_seconds_sum ").append(latencyNanos.sum() / 1e9).append('\n');
+        sb.append("set_verdict_latency_seconds_count ").append(cumulative).append('\n');
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        gauge(sb, "set_jvm_threads", "Live threads in the process.", threads.getThreadCount());
+        return sb.toString();
+    }
+
+    private static void counter(StringBuilder sb, String name, String help, long value) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(" counter\n");
+        sb.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void gauge(StringBuilder sb, String name, String help, long value) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(" gauge\n");
+        sb.append(name).append(' ').append(value).append('\n');
+    }
+}
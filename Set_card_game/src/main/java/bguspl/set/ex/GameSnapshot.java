@@ -0,0 +1,170 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * An immutable copy of the full game state (table, deck, scores and tokens) and its compact binary format.
+ *
+ * Format: magic, version, table size, then the card of each slot (-1 if none), the deck, and for each player
+ * the score followed by the chosen slots. Cards and slots are written as shorts.
+ */
+public class GameSnapshot {
+
+    private static final int MAGIC = 0x53455453; // "SETS"
+    private static final short VERSION = 1;
+    private static final int NONE = -1;
+
+    /**
+     * The card in each slot (NONE if empty).
+     */
+    final int[] slotToCard;
+
+    /**
+     * The cards left in the dealer's deck, in order.
+     */
+    final int[] deck;
+
+    /**
+     * The score of each player.
+     */
+    final int[] scores;
+
+    /**
+     * The slots each player placed tokens on.
+     */
+    final int[][] chosenSlots;
+
+    GameSnapshot(int[] slotToCard, int[] deck, int[] scores, int[][] chosenSlots) {
+        this.slotToCard = slotToCard;
+        this.deck = deck;
+        this.scores = scores;
+        this.chosenSlots = chosenSlots;
+    }
+
+    /**
+     * Returns the number of players in the snapshot.
+     */
+    public int players() {
+        return scores.length;
+    }
+
+    /**
+     * Returns the number of slots in the snapshot.
+     */
+    public int tableSize() {
+        return slotToCard.length;
+    }
+
+    /**
+     * Writes the snapshot to a file, the file is replaced atomically so a crash never leaves a partial snapshot.
+     * @param file - the snapshot file.
+     * @throws IOException - if the file cannot be written.
+     */
+    public void write(Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeShort(slotToCard.length);
+            for (int card : slotToCard)
+                out.writeShort(card);
+            out.writeShort(deck.length);
+            for (int card : deck)
+                out.writeShort(card);
+            out.writeShort(scores.length);
+            for (int player = 0; player < scores.length; player++) {
+                out.writeInt(scores[player]);
+                out.writeByte(chosenSlots[player].length);
+                for (int slot : chosenSlots[player])
+                    out.writeShort(slot);
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a snapshot from a file, checking every length and id against the game configuration.
+     * @param file    - the snapshot file.
+     * @param config  - the configuration of the game to restore.
+     * @param setSize - the number of cards in a set, the most tokens a player can have.
+     * @return - the snapshot.
+     * @throws IOException - if the file cannot be read, is not a snapshot or does not fit the configuration.
+     */
+    public static GameSnapshot read(Path file, Config config, int setSize) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readShort() != VERSION)
+                throw new IOException("not a game snapshot: " + file);
+            boolean[] dealt = new boolean[config.deckSize];
+            int[] slotToCard = new int[length(in, config.tableSize, config.tableSize, "slots")];
+            for (int slot = 0; slot < slotToCard.length; slot++) {
+                slotToCard[slot] = in.readShort();
+                if (slotToCard[slot] != NONE)
+                    deal(dealt, slotToCard[slot]);
+            }
+            int[] deck = new int[length(in, 0, config.deckSize, "deck cards")];
+            for (int i = 0; i < deck.length; i++)
+                deck[i] = deal(dealt, in.readShort());
+            int players = length(in, config.players, config.players, "players");
+            int[] scores = new int[players];
+            int[][] chosenSlots = new int[players][];
+            for (int player = 0; player < players; player++) {
+                scores[player] = in.readInt();
+                if (scores[player] < 0)
+                    throw new IOException("corrupt game snapshot: negative score " + scores[player]);
+                int chosen = in.readByte();
+                if (chosen < 0 || chosen > setSize)
+                    throw new IOException("corrupt game snapshot: " + chosen + " chosen slots");
+                chosenSlots[player] = new int[chosen];
+                for (int i = 0; i < chosenSlots[player].length; i++) {
+                    int slot = in.readShort();
+                    if (slot < 0 || slot >= slotToCard.length || slotToCard[slot] == NONE)
+                        throw new IOException("corrupt game snapshot: token on slot " + slot);
+                    for (int j = 0; j < i; j++)
+                        if (chosenSlots[player][j] == slot)
+                            throw new IOException("corrupt game snapshot: two tokens on slot " + slot);
+                    chosenSlots[player][i] = slot;
+                }
+            }
+            return new GameSnapshot(slotToCard, deck, scores, chosenSlots);
+        }
+    }
+
+    /**
+     * Reads a length and checks it is in [min, max].
+     * @throws IOException - if the length is out of range.
+     */
+    private static int length(DataInputStream in, int min, int max, String what) throws IOException {
+        int length = in.readShort();
+        if (length < min || length > max)
+            throw new IOException("corrupt game snapshot: " + length + " " + what + ", expected " + min + " to " + max);
+        return length;
+    }
+
+    /**
+     * Marks a card as dealt (on the table or in the deck).
+     * @return - the card.
+     * @throws IOException - if the card is not in the deck or was already dealt.
+     */
+    private static int deal(boolean[] dealt, int card) throws IOException {
+        if (card < 0 || card >= dealt.length || dealt[card])
+            throw new IOException("corrupt game snapshot: card " + card + " is invalid or appears twice");
+        dealt[card] = true;
+        return card;
+    }
+
+    /**
+     * Returns the card in a slot, or null if the slot is empty.
+     */
+    Integer cardOfSlot(int slot) {
+        return slotToCard[slot] == NONE ? null : slotToCard[slot];
+    }
+}
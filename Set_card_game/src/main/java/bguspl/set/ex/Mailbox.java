@@ -0,0 +1,89 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded lock-free queue of commands, for many producer threads and a single consumer thread.
+ * Each cell has a sequence number telling whether it is free for the producer of a position or holds the command
+ * of a position for the consumer, so neither side ever takes a lock.
+ *
+ * @inv commands are non negative, EMPTY is never a command
+ */
+final class Mailbox {
+
+    /**
+     * Returned by poll when there is no command.
+     */
+    static final long EMPTY = -1;
+
+    private final long[] commands;
+    private final AtomicLongArray sequences;
+    private final int mask;
+
+    /**
+     * The next position to offer to (shared by the producers).
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * The next position to poll from (owned by the consumer).
+     */
+    private long head;
+
+    /**
+     * @param capacity - the minimal number of commands the mailbox can hold (rounded up to a power of 2).
+     */
+    Mailbox(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        commands = new long[size];
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++)
+            sequences.set(i, i);
+        mask = size - 1;
+    }
+
+    /**
+     * Adds a command, called by any thread.
+     * @return - false iff the mailbox is full.
+     */
+    boolean offer(long command) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    commands[index] = command;
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (diff < 0)
+                return false;
+            else
+                position = tail.get();
+        }
+    }
+
+    /**
+     * Takes the oldest command, called by the consumer thread only.
+     * @return - the command, or EMPTY if there is none.
+     */
+    long poll() {
+        int index = (int) head & mask;
+        if (sequences.get(index) != head + 1)
+            return EMPTY;
+        long command = commands[index];
+        sequences.lazySet(index, head + commands.length);
+        head++;
+        return command;
+    }
+
+    /**
+     * Returns true iff there is no command to poll, called by the consumer thread only.
+     */
+    boolean isEmpty() {
+        return sequences.get((int) head & mask) != head + 1;
+    }
+}
@@ -0,0 +1,135 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The verdict futures of the players' set claims waiting in the table's claim arbiter. A claim is opened when it
+ * is submitted and taken out by the dealer thread when the arbiter hands it over, so a player has at most one claim
+ * in the arbiter. The dealer completes the future of a claim it checks; the future completes exceptionally with a
+ * TimeoutException if the claim is not checked in time, and the dealer cancels it if the table is cleared first.
+ * A claim that timed out keeps its place in the arbiter until the player claims again, and the new claim takes it.
+ * Once the dealer starts checking a claim (see Claim.check) neither the timeout nor a cancel can complete it, so a
+ * set the dealer takes off the table always reaches its claimant.
+ *
+ * @inv claims[player] != null iff the player has an entry in the arbiter
+ */
+final class PendingClaims {
+
+    /**
+     * The future of a claim's verdict, decided once: either the dealer starts checking it, or it times out or is
+     * cancelled before that.
+     */
+    static final class Claim extends CompletableFuture<Verdict> {
+
+        private final AtomicBoolean decided = new AtomicBoolean();
+
+        /**
+         * Starts checking the claim, called by the dealer thread before it looks at the claimed cards.
+         * @return - true iff the dealer should check the claim and complete it, false if it timed out or was
+         * cancelled.
+         */
+        boolean check() {
+            return decided.compareAndSet(false, true);
+        }
+
+        /**
+         * Fails the claim with a TimeoutException, unless the dealer already started checking it.
+         */
+        void expire(long timeoutMillis) {
+            if (decided.compareAndSet(false, true))
+                completeExceptionally(new TimeoutException("no verdict in " + timeoutMillis + " ms"));
+        }
+
+        /**
+         * Cancels the claim, unless the dealer already started checking it.
+         */
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return decided.compareAndSet(false, true) && super.cancel(mayInterruptIfRunning);
+        }
+    }
+
+    /**
+     * Expires the claims of every table (null until a claim with a timeout is opened).
+     */
+    private static ScheduledExecutorService timer;
+
+    private final AtomicReferenceArray<Claim> claims;
+
+    PendingClaims(int players) {
+        this.claims = new AtomicReferenceArray<>(players);
+    }
+
+    /**
+     * Opens a claim of a player.
+     * @param claim         - the future of the claim's verdict.
+     * @param timeoutMillis - the time the claim may wait for its verdict (0 for no limit).
+     * @return - true iff the claim should be submitted to the arbiter, false if it took the arbiter entry of the
+     * player's claim that timed out.
+     * @throws IllegalStateException - if the player has a claim waiting for its verdict.
+     */
+    boolean open(int player, Claim claim, long timeoutMillis) {
+        boolean submit;
+        while (true) {
+            Claim previous = claims.get(player);
+            if (previous != null && !previous.isDone())
+                throw new IllegalStateException("player " + player + " has a pending claim");
+            if (claims.compareAndSet(player, previous, claim)) {
+                submit = previous == null;
+                break;
+            }
+        }
+        if (timeoutMillis > 0) {
+            ScheduledFuture<?> expiry = timer().schedule(() -> claim.expire(timeoutMillis), timeoutMillis, TimeUnit.MILLISECONDS);
+            claim.whenComplete((verdict, error) -> expiry.cancel(false));
+        }
+        return submit;
+    }
+
+    /**
+     * Takes the claim of a player out, called by the dealer thread when the arbiter hands it over.
+     * @return - the future of the claim's verdict, or null if the player has no claim.
+     */
+    Claim take(int player) {
+        return claims.getAndSet(player, null);
+    }
+
+    /**
+     * Cancels the claims the arbiter hands over, called by the dealer thread when the table is cleared.
+     */
+    void cancel(ClaimArbiter arbiter) {
+        for (int player = arbiter.next(); player != -1; player = arbiter.next())
+            cancel(player);
+    }
+
+    /**
+     * Cancels every claim waiting for its verdict, called when the game ends.
+     */
+    void cancelAll() {
+        for (int player = 0; player < claims.length(); player++)
+            cancel(player);
+    }
+
+    private void cancel(int player) {
+        Claim claim = take(player);
+        if (claim != null)
+            claim.cancel(false);
+    }
+
+    private static synchronized ScheduledExecutorService timer() {
+        if (timer == null)
+            timer = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "claim-timer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        return timer;
+    }
+}
@@ -1,10 +1,15 @@
 package bguspl.set.ex;
 
-import java.util.LinkedList;
-import java.util.logging.Level;
 import bguspl.set.Env;
+import bguspl.set.FlightEvents;
+import bguspl.set.ThreadLogger;
 import java.util.List;
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * This class manages the players' threads and data
@@ -32,7 +37,7 @@ public class Player implements Runnable {
     /**
      * The thread representing the current player.
      */
-    private Thread playerThread;
+    private volatile Thread playerThread;
 
     /**
      * The thread of the AI (computer) player (an additional thread used to generate key presses).
@@ -49,25 +54,82 @@ public class Player implements Runnable {
      */
     private volatile boolean terminate;
 
+    /*
+     * Contains the latest 3 key presss
+     */
+    protected final PressQueue keyPressedQueue;
+
     /**
-     * The current score of the player.
+     * The longest time the player thread waits for a key press before checking whether it should terminate.
      */
-    private int score;
+    private static final long IDLE_WAIT_NANOS = 10000000;
 
-    /*
-     * Contains the latest 3 key presss
+    /**
+     * The key presses of a human player that may wait for the player thread, further presses are dropped.
+     */
+    private static final int INBOX_PRESSES = 16;
+
+    /**
+     * The key presses of a human player not yet taken by the player thread, each one is
+     * ((press time - inboxEpoch) << SLOT_BITS | slot), so the keyboard never waits for the player's locks
+     * (null for a computer player).
+     */
+    private final Mailbox inbox;
+
+    /**
+     * The time (System.nanoTime) the press times in the inbox are relative to.
+     */
+    private final long inboxEpoch;
+
+    /**
+     * The time (System.nanoTime) from which the human key presses are taken: presses made while the player's claim
+     * was checked or while it was frozen are dropped, by the time they were pressed (not the time they are taken).
+     */
+    private volatile long acceptPressesFrom;
+
+    private static final int SLOT_BITS = 16;
+    private static final long SLOT_MASK = (1 << SLOT_BITS) - 1;
+
+    /**
+     * The pool running the player's tasks in the "pool" engine (null if the player has a thread)
+     */
+    private PlayerPool pool;
+
+    /**
+     * The states of the player's task on the pool: none, scheduled or running, and woken again while scheduled or
+     * running (it then runs once more).
      */
-    protected ArrayBlockingQueue<Integer> keyPressedQueue;
+    private static final int IDLE = 0, SCHEDULED = 1, WOKEN = 2;
 
     /**
-     * Updates everytime the player ask the dealer to check for a set
+     * The state of the player's task on the pool (its monitor signals awaitIdle)
      */
-    protected boolean hadAset = false;
+    private final AtomicInteger scheduled = new AtomicInteger(IDLE);
 
     /**
-     * True iff the player submitted a wrong set
+     * The verdict of the player's claim the player's task did not take yet (pool engine, owned by the player's task)
      */
-    protected boolean shouldBePunished = false;
+    private CompletableFuture<Verdict> claim;
+
+    /**
+     * Paces the key presses of a computer player in the pool engine
+     */
+    private BotPacer pacer;
+
+    /**
+     * The time (System.nanoTime) of the key press that placed the latest token
+     */
+    private long lastTokenPressTime;
+
+    /**
+     * The time (System.nanoTime) the latest claim was submitted
+     */
+    private volatile long claimSubmitTime;
+
+    /**
+     * The key presses passed to the dealer and not handled yet (when the dealer owns the chosen slots)
+     */
+    private final AtomicInteger keysInFlight = new AtomicInteger();
 
     /**
      * True iff the last submitted set was checked by the dealer
@@ -79,6 +141,16 @@ public class Player implements Runnable {
      */
     private Dealer dealer;
 
+    /**
+     * The time (in millis) until which the player is frozen, key presses before it are dropped
+     */
+    private volatile long freezeUntil = 0;
+
+    /**
+     * The freeze time currently shown in the ui (0 if none)
+     */
+    private volatile long freezeShown = 0;
+
     /**
      * The slots where we placed our tokens
      */
@@ -100,8 +172,11 @@ public class Player implements Runnable {
         this.id = id;
         this.human = human;
         this.dealer = dealer;
-        this.keyPressedQueue = new ArrayBlockingQueue<Integer>(Table.legalSetSize);
-        this.chosenSlots = new LinkedList<Integer>();
+        this.keyPressedQueue = new PressQueue(table.legalSetSize);
+        this.inbox = human ? new Mailbox(INBOX_PRESSES) : null;
+        this.inboxEpoch = System.nanoTime();
+        this.acceptPressesFrom = inboxEpoch;
+        this.chosenSlots = new ShortList(table.legalSetSize, env.config.tableSize);
         this.terminate = false;
     }
 
@@ -111,7 +186,11 @@ public class Player implements Runnable {
     @Override
     public void run() {
         playerThread = Thread.currentThread();
-        env.logger.log(Level.INFO, "Thread " + Thread.currentThread().getName() + "starting.");
+        ThreadLogger.logStart(env.logger, dealer.profiler);
+        if (dealer.profiler != null) {
+            dealer.profiler.nameMonitor(this, "player-" + id);
+            dealer.profiler.nameMonitor(keyPressedQueue, "keyPressedQueue-" + id);
+        }
     
         if (!human) {
             createArtificialIntelligence();
@@ -119,11 +198,15 @@ public class Player implements Runnable {
     
         while (!terminate) {
             // Check if the player has chosen fewer than 3 slots or if they have already been checked
-            if (chosenSlots.size() < Table.legalSetSize || wasChecked) 
+            if (chosenSlots.size() < table.legalSetSize || wasChecked) {
+                // wait for a key press instead of spinning on an empty queue (bounded, so terminate is noticed)
+                if (keyPressedQueue.isEmpty() && (inbox == null || inbox.isEmpty()))
+                    LockSupport.parkNanos(this, IDLE_WAIT_NANOS);
                 pullingFromKeyPressQ();
+            }
     
             // Check if the player has chosen 3 slots and they have not been checked yet
-            if (chosenSlots.size() == Table.legalSetSize && !wasChecked)
+            if (chosenSlots.size() == table.legalSetSize && !wasChecked)
                 submittingSet();
         }
     
@@ -132,65 +215,118 @@ public class Player implements Runnable {
                 aiThread.join();
             } catch (InterruptedException ignored) {}
         }
-        env.logger.log(Level.INFO, "Thread " + Thread.currentThread().getName() + " terminated.");
+        ThreadLogger.logStop(env.logger, dealer.profiler);
     }
 
     private void pullingFromKeyPressQ(){
         synchronized (keyPressedQueue) {
+            takeInbox();
             // Check if there are any keys in the queue
             if (!keyPressedQueue.isEmpty()) {
                 // Remove the first key from the queue
-                int newSlot = keyPressedQueue.remove();
-
-                // Check if the player has already chosen this slot
-                if (chosenSlots.contains(newSlot)) {
-                    // If so, remove the token from this slot
-                    chosenSlots.remove((Integer) newSlot);
-                    env.ui.removeToken(id, newSlot);
-
-                } else if (chosenSlots.size() < Table.legalSetSize) {
-                    // Otherwise, check if there is a card in this slot
-                    synchronized(table){
-                        if (table.slotToCard[newSlot] != null) {
-                            try {
-                                table.placeToken(id, newSlot, this);
-                            } catch (NullPointerException ignored) {}
-                            wasChecked = false;
-                        }
-                    }
-  
-                }
+                int newSlot = keyPressedQueue.slot();
+                long pressTime = keyPressedQueue.time();
+                keyPressedQueue.remove();
+                toggleToken(newSlot, pressTime);
             }
             keyPressedQueue.notifyAll();
         }
     }
 
+    /**
+     * Removes the player's token from the slot if it has one there, otherwise places one if the slot has a card and
+     * the player has fewer than legalSetSize tokens.
+     * @param pressTime - the time (System.nanoTime) of the key press.
+     */
+    private void toggleToken(int newSlot, long pressTime) {
+        // Check if the player has already chosen this slot
+        if (chosenSlots.contains(newSlot)) {
+            // If so, remove the token from this slot (tokens change under the table lock)
+            table.removeToken(id, newSlot);
+
+        } else if (chosenSlots.size() < table.legalSetSize) {
+            // Otherwise, check if there is a card in this slot
+            synchronized(table){
+                if (table.slotToCard[newSlot] != TableState.NONE) {
+                    try {
+                        table.placeToken(id, newSlot, this);
+                        lastTokenPressTime = pressTime;
+                    } catch (NullPointerException ignored) {}
+                    wasChecked = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves the human key presses from the inbox to the key press queue, called by the player thread only.
+     * @pre - the caller holds the keyPressedQueue lock.
+     * @post - the inbox is empty, presses that do not fit or were not accepted when pressed are dropped.
+     */
+    private void takeInbox() {
+        if (inbox == null)
+            return;
+        for (long press = inbox.poll(); press != Mailbox.EMPTY; press = inbox.poll()) {
+            long pressTime = inboxEpoch + (press >>> SLOT_BITS);
+            if (!keyPressedQueue.isFull() && accepts(pressTime))
+                keyPressedQueue.add((int) (press & SLOT_MASK), pressTime);
+        }
+    }
+
+    /**
+     * Returns true iff a human key press made at pressTime (System.nanoTime) is taken.
+     */
+    private boolean accepts(long pressTime) {
+        return pressTime - acceptPressesFrom >= 0;
+    }
+
+    /**
+     * Drops the human key presses made before a time, including the ones still in the inbox.
+     * @param time - the time (System.nanoTime), the presses from it on are taken.
+     */
+    private void dropPressesBefore(long time) {
+        if (time - acceptPressesFrom > 0)
+            acceptPressesFrom = time;
+    }
+
     private void submittingSet(){
+        Object event = FlightEvents.beginSubmitSet();
+        claimed();
+        Verdict verdict = verdictOf(dealer.submitClaim(id, lastTokenPressTime));
+        // the key presses made while the claim was checked are dropped, also the ones still in the inbox
         synchronized (keyPressedQueue) {
-            synchronized (this) {
-                try {
-                    table.sem.acquire();
-                } catch (InterruptedException e) {}
-                table.PlayersWithSet.add(id);
-                dealer.dealerThread.interrupt();
-                table.sem.release();
-                try {
-                    this.wait();
-                } catch (InterruptedException ignored) {}
-            }
+            dropPressesBefore(System.nanoTime());
             keyPressedQueue.clear();
+            takeInbox();
             keyPressedQueue.notifyAll(); // wake the AI
         }
+        FlightEvents.endSubmitSet(event, id, verdict == Verdict.SET, verdict == Verdict.NOT_A_SET);
 
-        // Check if the player had a set
-        if (hadAset) {
+        applyVerdict(verdict);
+        wasChecked = true; 
+    }
+
+    /**
+     * Waits for the verdict of a claim, returns at once if it is done.
+     * @return - the verdict, or null if the claim timed out, was cancelled or the player thread was interrupted.
+     */
+    private static Verdict verdictOf(CompletableFuture<Verdict> claim) {
+        try {
+            return claim.get();
+        } catch (InterruptedException | ExecutionException | CancellationException ignored) {
+            return null;
+        }
+    }
+
+    /**
+     * Awards a point for a set and a penalty for a wrong set.
+     * @param verdict - the verdict of the player's claim (null if it has none).
+     */
+    void applyVerdict(Verdict verdict) {
+        if (verdict == Verdict.SET)
             point();
-        } else if (shouldBePunished) {
+        else if (verdict == Verdict.NOT_A_SET)
             penalty();
-        }
-        hadAset = false;
-        shouldBePunished = false;
-        wasChecked = true; 
     }
     
 
@@ -198,27 +334,193 @@ public class Player implements Runnable {
      * key presses. If the queue of key presses is full, the thread waits until it is not full.
      */
     private void createArtificialIntelligence() {
+        BotPacer pacer = new BotPacer(env, table.scoreboard, id, table.legalSetSize, dealer::claimBacklog);
         aiThread = new Thread(() -> {
-            env.logger.log(Level.INFO, "Thread " + Thread.currentThread().getName() + " starting.");
+            ThreadLogger.logStart(env.logger, dealer.profiler);
             while (!terminate) {
-                // try {
-                //     synchronized (this) { 
-                //         wait(100); }
-                // } catch (InterruptedException ignored) {}
+                // no point in generating presses that will be dropped anyway
+                long frozen = freezeUntil - System.currentTimeMillis();
+                if (frozen > 0) {
+                    try { Thread.sleep(frozen); } catch (InterruptedException ignored) {}
+                    continue;
+                }
+                long wait = pacer.nextPress();
+                if (wait > 0) {
+                    LockSupport.parkNanos(this, wait);
+                    continue;
+                }
                 int randomPress = (int)(Math.random() * (env.config.tableSize));
                 keyPressed(randomPress);
             }
-            env.logger.log(Level.INFO, "Thread " + Thread.currentThread().getName() + " terminated.");
+            ThreadLogger.logStop(env.logger, dealer.profiler);
         }, "computer-" + id);
         aiThread.start();
     }
 
+    /**
+     * Counts a set claim of the player, just before the dealer gets it.
+     */
+    void claimed() {
+        table.scoreboard.claim(id);
+        GameMetrics.INSTANCE.claim();
+        claimSubmitTime = System.nanoTime();
+        table.events.publish(GameEvent.Type.CLAIM_SUBMITTED, id, -1, -1, 0);
+    }
+
+    /**
+     * Starts generating key presses for a computer player, without a player thread (the dealer owns the chosen slots).
+     */
+    void startInput() {
+        if (!human)
+            createArtificialIntelligence();
+    }
+
+    /**
+     * Starts the player as tasks on a pool instead of a thread (pool engine): key presses and the dealer's verdicts
+     * schedule a task of the player, and a computer player schedules its own next key press.
+     */
+    void startPooled(PlayerPool pool) {
+        this.pool = pool;
+        if (!human) {
+            pacer = new BotPacer(env, table.scoreboard, id, table.legalSetSize, dealer::claimBacklog);
+            wake();
+        }
+    }
+
+    /**
+     * Wakes the player thread, or schedules a task of the player in the pool engine (at most one runs at a time).
+     */
+    private void wake() {
+        if (pool == null) {
+            Thread thread = playerThread;
+            if (thread != null)
+                LockSupport.unpark(thread);
+        } else {
+            while (true) {
+                int state = scheduled.get();
+                if (state == WOKEN || state == SCHEDULED && scheduled.compareAndSet(SCHEDULED, WOKEN))
+                    return;
+                if (state == IDLE && scheduled.compareAndSet(IDLE, SCHEDULED)) {
+                    pool.execute(this::act);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * The task of the player in the pool engine: takes the verdict on its claim and its key presses, makes the next
+     * key press of a computer player, and claims a set once the player has legalSetSize tokens.
+     */
+    private void act() {
+        boolean again = false;
+        try {
+            if (terminate)
+                return;
+            if (claim != null && claim.isDone())
+                takeVerdict();
+            if (human) {
+                for (long press = inbox.poll(); press != Mailbox.EMPTY; press = inbox.poll()) {
+                    long pressTime = inboxEpoch + (press >>> SLOT_BITS);
+                    if (claim == null && accepts(pressTime))
+                        pooledPress((int) (press & SLOT_MASK), pressTime);
+                }
+            }
+            if (!human && claim == null)
+                again = botPress();
+        } finally {
+            // the inbox is read only by the running task; a verdict or a press that comes after this check wakes
+            // the task, which then runs once more instead of going idle
+            boolean work = again || claim != null && claim.isDone() || inbox != null && !inbox.isEmpty();
+            if (terminate) {
+                synchronized (scheduled) {
+                    scheduled.set(IDLE);
+                    scheduled.notifyAll(); // see awaitIdle
+                }
+            } else if (work || !scheduled.compareAndSet(SCHEDULED, IDLE)) {
+                scheduled.set(SCHEDULED);
+                pool.execute(this::act);
+            }
+        }
+    }
+
+    /**
+     * Makes the next key press of a computer player in the pool engine, or schedules the task for when it may.
+     * @return - true iff a key was pressed and the task should run again.
+     */
+    private boolean botPress() {
+        long frozen = freezeUntil - System.currentTimeMillis();
+        if (frozen > 0) {
+            pool.schedule(this::wake, frozen * 1000000L);
+            return false;
+        }
+        long wait = pacer.nextPress();
+        if (wait > 0) {
+            pool.schedule(this::wake, wait);
+            return false;
+        }
+        pooledPress((int) (Math.random() * env.config.tableSize), System.nanoTime());
+        return true;
+    }
+
+    private void pooledPress(int slot, long pressTime) {
+        toggleToken(slot, pressTime);
+        if (chosenSlots.size() == table.legalSetSize && !wasChecked) {
+            claimed();
+            claim = dealer.submitClaim(id, lastTokenPressTime);
+            claim.whenComplete((verdict, error) -> wake());
+        }
+    }
+
+    private void takeVerdict() {
+        Verdict verdict = verdictOf(claim);
+        claim = null;
+        // the key presses made while the claim was checked are dropped
+        dropPressesBefore(System.nanoTime());
+        applyVerdict(verdict);
+        wasChecked = true;
+    }
+
+    /**
+     * Waits until no task of the player runs (pool engine), called after terminate.
+     */
+    void awaitIdle() {
+        boolean interrupted = false;
+        synchronized (scheduled) {
+            while (scheduled.get() != IDLE) {
+                try {
+                    scheduled.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Waits for the key generating thread started by startInput to end.
+     */
+    void joinInput() throws InterruptedException {
+        if (aiThread != null)
+            aiThread.join();
+    }
+
+    /**
+     * Called by the dealer thread when it took a key press of the player from its mailbox.
+     */
+    void inputTaken() {
+        if (keysInFlight.getAndDecrement() == table.legalSetSize && aiThread != null)
+            LockSupport.unpark(aiThread);
+    }
+
     /**
      * Called when the game should be terminated due to an external event.
      */
     public void terminate() {
         terminate = true;
-        if(!human)
+        if(aiThread != null)
                 aiThread.interrupt();
     }
 
@@ -230,16 +532,49 @@ public class Player implements Runnable {
      * @inv he size of the keyPressedQueue will not exceed the legalSetSize
      */
     public void keyPressed(int slot) {
+        keyPressed(slot, System.nanoTime());
+    }
+
+    /**
+     * This method is called when a key is pressed, with the time it was pressed. A human player's press is only
+     * added to a lock-free inbox, so the calling (keyboard) thread never waits for the player thread.
+     *
+     * @param slot      - the slot corresponding to the key pressed.
+     * @param pressTime - the time (System.nanoTime) of the key press, used to order the claims.
+     */
+    public void keyPressed(int slot, long pressTime) {
+        // presses during a freeze are dropped without touching the queue
+        if (isFrozen())
+            return;
+        // a computer player of the pool engine presses from its own task
+        if (!human && pool != null)
+            return;
+        if (human && !dealer.ownsSelections()) {
+            if (inbox.offer((pressTime - inboxEpoch) << SLOT_BITS | slot))
+                wake();
+            return;
+        }
+        if (dealer.ownsSelections()) {
+            // at most legalSetSize presses in flight, a computer player waits for the dealer to take one
+            while (!human && !terminate && keysInFlight.get() >= table.legalSetSize)
+                LockSupport.park(this);
+            if (keysInFlight.incrementAndGet() > table.legalSetSize || !dealer.offerKey(id, slot))
+                keysInFlight.decrementAndGet();
+            return;
+        }
         synchronized(keyPressedQueue){
            
-            if(!human & keyPressedQueue.size() == Table.legalSetSize){
+            if(!human & keyPressedQueue.isFull()){
                 try {
                     keyPressedQueue.wait();
                 } catch (InterruptedException ignored) {}              
             }
 
-            if(keyPressedQueue.size() < Table.legalSetSize )  
-                keyPressedQueue.add(slot);
+            // the player may have been frozen while we waited
+            if(!keyPressedQueue.isFull() && !isFrozen()) {
+                keyPressedQueue.add(slot, pressTime);
+                LockSupport.unpark(playerThread); // wake the player thread
+            }
 
         } 
     }
@@ -249,40 +584,120 @@ public class Player implements Runnable {
      *
      * @post - the player's score is increased by 1.
      * @post - the player's score is updated in the ui.
+     * @post - the player is frozen for pointFreezeMillis.
      */
     public void point() {
-        score++;
+        long millis = env.config.pointFreezeMillis;
+        int score = table.scoreboard.point(id, Math.max(0, millis));
         env.ui.setScore(id, score);
-        synchronized(this){
-            for(long i = env.config.pointFreezeMillis; i > 0; i -= Table.oneSecondsInMillis ){
-                env.ui.setFreeze(id, i);
-                try { Thread.sleep(Math.min(i, Table.oneSecondsInMillis)); } catch (InterruptedException ignored) {}
-            }
-            env.ui.setFreeze(id, 0);
-            keyPressedQueue.clear();
-        }
+        recordScore(false, score, millis);
+        freeze(millis);
         int ignored = table.countCards(); // this part is just for demonstration in the unit tests
     }
 
     /**
      * Penalize a player and perform other related actions.
+     *
+     * @post - the player is frozen for penaltyFreezeMillis.
      */
     public void penalty() {
-        synchronized(this){
-            for(long i = env.config.penaltyFreezeMillis; i > 0; i -= Table.oneSecondsInMillis ){
-                env.ui.setFreeze(id, i);
-                try { Thread.sleep(Math.min( Table.oneSecondsInMillis, i)); } catch (InterruptedException ignored) {}
+        long millis = env.config.penaltyFreezeMillis;
+        table.scoreboard.penalty(id, Math.max(0, millis));
+        GameMetrics.INSTANCE.penalty();
+        recordScore(true, score(), millis);
+        freeze(millis);
+    }
+
+    /**
+     * Records a point or a penalty in the flight recorder.
+     */
+    private void recordScore(boolean penalty, int score, long freezeMillis) {
+        FlightEvents.score(id, penalty, score, freezeMillis);
+    }
+
+    /**
+     * Freezes the player without blocking, the freeze ends when its time passes (see updateFreeze).
+     * @param millis - the freeze time in milliseconds.
+     */
+    private void freeze(long millis) {
+        dropPressesBefore(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis)));
+        if (!dealer.ownsSelections()) {
+            synchronized (keyPressedQueue) {
+                keyPressedQueue.clear();
+                if (inbox != null)
+                    while (inbox.poll() != Mailbox.EMPTY);
+                keyPressedQueue.notifyAll(); // wake the AI
             }
-            env.ui.setFreeze(id, 0);
-            keyPressedQueue.clear();
         }
+        if (millis <= 0)
+            return;
+        freezeUntil = System.currentTimeMillis() + millis;
+        freezeShown = millis;
+        table.events.publish(GameEvent.Type.FREEZE, id, -1, -1, millis);
+        env.ui.setFreeze(id, millis);
+    }
+
+    /**
+     * Returns true iff the player is currently frozen.
+     */
+    public boolean isFrozen() {
+        return System.currentTimeMillis() < freezeUntil;
+    }
+
+    /**
+     * Updates the freeze display of the player, called periodically by the dealer's timer.
+     * @param now - the current time in millis.
+     * @post - the ui shows the remaining freeze time rounded up to seconds, or no freeze if it ended.
+     */
+    public void updateFreeze(long now) {
+        if (freezeShown == 0)
+            return;
+        long remaining = Math.max(0, freezeUntil - now);
+        long display = (remaining + Table.oneSecondsInMillis - 1) / Table.oneSecondsInMillis * Table.oneSecondsInMillis;
+        if (display < freezeShown) {
+            freezeShown = display;
+            env.ui.setFreeze(id, display);
+        }
+    }
+
+    /**
+     * Returns the next time the freeze display of the player should be updated (Long.MAX_VALUE if none).
+     * @param now - the current time in millis.
+     */
+    public long nextFreezeUpdate(long now) {
+        if (freezeShown == 0)
+            return Long.MAX_VALUE;
+        long remaining = freezeUntil - now;
+        if (remaining <= 0)
+            return now;
+        return now + (remaining - 1) % Table.oneSecondsInMillis + 1;
+    }
+
+    /**
+     * Restores the score and tokens of the player from a snapshot, called before the player thread starts.
+     * @param score - the restored score.
+     * @param slots - the restored chosen slots.
+     */
+    void restore(int score, int[] slots) {
+        table.scoreboard.restore(id, score);
+        env.ui.setScore(id, score);
+        chosenSlots.clear();
+        for (int slot : slots)
+            table.placeToken(id, slot, this);
+    }
+
+    /**
+     * Returns the time (System.nanoTime) the latest claim was submitted.
+     */
+    long claimSubmitTime() {
+        return claimSubmitTime;
     }
 
     /**
      * Initialize the player thread
      */
     public void initializeThread(){
-        playerThread = new Thread(this);
+        playerThread = new Thread(this, "player-" + id);
     }
 
     /**
@@ -297,14 +712,14 @@ public class Player implements Runnable {
      * Returns the player's score
      */
     public int score() {
-        return score;
+        return table.scoreboard.score(id);
     }
 
      /**
      * Returns the player's Chosen Slots as an Array
      */
     public Integer[] getChosenSlots(){
-        Integer[] slotsArray = new Integer[Table.legalSetSize];
+        Integer[] slotsArray = new Integer[table.legalSetSize];
         for(int i = 0; i < chosenSlots.size(); i++)
             slotsArray[i] = chosenSlots.get(i);
         return slotsArray;
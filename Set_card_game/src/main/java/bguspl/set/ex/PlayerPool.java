@@ -0,0 +1,63 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The worker threads shared by the players of every table in the "pool" engine. The players' tasks run in FIFO
+ * order from a single queue, so a task submitted by a worker (a computer player pressing again) never overtakes
+ * one submitted from outside (a verdict, the end of a freeze). Delayed tasks (the end of a freeze, a paced key
+ * press) wait on a single timer thread which only hands them over to the workers.
+ */
+final class PlayerPool {
+
+    /**
+     * The pool of the process (null until first used).
+     */
+    private static PlayerPool shared;
+
+    private final ExecutorService workers;
+    private final ScheduledExecutorService timer;
+
+    private PlayerPool(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "player-pool-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "player-pool-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns the pool of the process, created on first use.
+     * @param threads - the number of worker threads, 0 for one per available processor (used by the first call only).
+     */
+    static synchronized PlayerPool shared(int threads) {
+        if (shared == null)
+            shared = new PlayerPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+        return shared;
+    }
+
+    /**
+     * Runs a task on one of the worker threads.
+     */
+    void execute(Runnable task) {
+        workers.execute(task);
+    }
+
+    /**
+     * Runs a task on one of the worker threads after a delay.
+     * @param nanos - the delay in nanoseconds.
+     */
+    void schedule(Runnable task, long nanos) {
+        timer.schedule(() -> workers.execute(task), nanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,35 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+/**
+ * A dealer whose players have no threads: a player's key presses, the verdicts on its claims and the end of its
+ * freezes run as tasks on a small pool of worker threads shared by every table (see PlayerPool), so the threads
+ * are busy only while players act. The dealer checks the claims on its own thread as in the "threads" engine.
+ *
+ * @inv at most one task of a player runs at a time
+ */
+public class PooledDealer extends Dealer {
+
+    private final PlayerPool pool;
+
+    public PooledDealer(Env env, Table table, Player[] players) {
+        super(env, table, players);
+        this.pool = PlayerPool.shared(env.config.playerPoolThreads);
+    }
+
+    @Override
+    protected void startPlayers() {
+        for (Player player : players)
+            player.startPooled(pool);
+    }
+
+    @Override
+    public void terminate() {
+        for (int i = players.length - 1; i >= 0; i--) {
+            players[i].terminate();
+            players[i].awaitIdle();
+        }
+        terminate = true;
+    }
+}
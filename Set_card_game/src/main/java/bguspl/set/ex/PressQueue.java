@@ -0,0 +1,76 @@
+package bguspl.set.ex;
+
+/**
+ * The key presses a player thread did not take yet, each one a slot and the time (System.nanoTime) it was pressed,
+ * in two small primitive rings. The callers synchronize on the queue, except for reading its size.
+ *
+ * @inv 0 <= size <= capacity
+ */
+final class PressQueue {
+
+    private final short[] slots;
+    private final long[] times;
+    private int head;
+    private volatile int size;
+
+    /**
+     * @param capacity - the maximal number of key presses in the queue.
+     */
+    PressQueue(int capacity) {
+        this.slots = new short[capacity];
+        this.times = new long[capacity];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean isFull() {
+        return size == slots.length;
+    }
+
+    /**
+     * Adds a key press at the end of the queue.
+     * @pre - the queue is not full.
+     */
+    void add(int slot, long time) {
+        int tail = (head + size) % slots.length;
+        slots[tail] = (short) slot;
+        times[tail] = time;
+        size++;
+    }
+
+    /**
+     * Returns the slot of the oldest key press.
+     * @pre - the queue is not empty.
+     */
+    int slot() {
+        return slots[head];
+    }
+
+    /**
+     * Returns the time of the oldest key press.
+     * @pre - the queue is not empty.
+     */
+    long time() {
+        return times[head];
+    }
+
+    /**
+     * Removes the oldest key press.
+     * @pre - the queue is not empty.
+     */
+    void remove() {
+        head = (head + 1) % slots.length;
+        size--;
+    }
+
+    void clear() {
+        head = 0;
+        size = 0;
+    }
+}
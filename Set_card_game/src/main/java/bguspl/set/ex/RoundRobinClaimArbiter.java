@@ -0,0 +1,32 @@
+package bguspl.set.ex;
+
+/**
+ * Checks the claims in turns, starting each scan from the player after the last one that was checked.
+ */
+class RoundRobinClaimArbiter extends SlotClaimArbiter {
+
+    /**
+     * The player whose claim was taken last (only accessed by the dealer thread).
+     */
+    private int last;
+
+    RoundRobinClaimArbiter(int players) {
+        super(players);
+        last = players - 1;
+    }
+
+    @Override
+    protected long key(long submitTime, long pressTime) {
+        return 0; // all claims are equal, the scan order decides
+    }
+
+    @Override
+    protected int firstToScan() {
+        return last + 1;
+    }
+
+    @Override
+    protected void taken(int player) {
+        last = player;
+    }
+}
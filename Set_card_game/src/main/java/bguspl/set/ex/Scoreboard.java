@@ -0,0 +1,133 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The counters of all the players, readable by any thread without locking.
+ *
+ * Every player has its own stripe of counters on a separate cache line, written only by the player's thread.
+ * Each stripe is guarded by a version counter that is odd while an update is in progress, so readers retry
+ * until they see all the counters of a player from the same update.
+ */
+public class Scoreboard {
+
+    /**
+     * The counters of one player, as read at one moment.
+     */
+    public static class Stats {
+
+        public final int score;
+        public final long claims;
+        public final long validSets;
+        public final long penalties;
+        public final long frozenMillis;
+
+        private Stats(long score, long claims, long validSets, long penalties, long frozenMillis) {
+            this.score = (int) score;
+            this.claims = claims;
+            this.validSets = validSets;
+            this.penalties = penalties;
+            this.frozenMillis = frozenMillis;
+        }
+    }
+
+    private static final int VERSION = 0;
+    private static final int SCORE = 1;
+    private static final int CLAIMS = 2;
+    private static final int VALID_SETS = 3;
+    private static final int PENALTIES = 4;
+    private static final int FROZEN_MILLIS = 5;
+
+    /**
+     * The longs per player, a 64 bytes cache line so players do not share lines.
+     */
+    private static final int STRIPE = 8;
+
+    private final AtomicLongArray counters;
+    private final int players;
+
+    public Scoreboard(int players) {
+        this.players = players;
+        this.counters = new AtomicLongArray(players * STRIPE);
+    }
+
+    /**
+     * Adds to counters of a player as one update.
+     */
+    private void update(int player, int field, long delta, int otherField, long otherDelta, long frozenMillis) {
+        int base = player * STRIPE;
+        counters.incrementAndGet(base + VERSION);
+        counters.addAndGet(base + field, delta);
+        if (otherDelta != 0)
+            counters.addAndGet(base + otherField, otherDelta);
+        if (frozenMillis != 0)
+            counters.addAndGet(base + FROZEN_MILLIS, frozenMillis);
+        counters.incrementAndGet(base + VERSION);
+    }
+
+    /**
+     * Counts a set claim of a player.
+     */
+    public void claim(int player) {
+        update(player, CLAIMS, 1, VALID_SETS, 0, 0);
+    }
+
+    /**
+     * Counts a valid set of a player and the point it scored.
+     * @param frozenMillis - the time the player is frozen for it.
+     * @return - the new score of the player.
+     */
+    public int point(int player, long frozenMillis) {
+        update(player, SCORE, 1, VALID_SETS, 1, frozenMillis);
+        return score(player);
+    }
+
+    /**
+     * Counts a penalty of a player.
+     * @param frozenMillis - the time the player is frozen for it.
+     */
+    public void penalty(int player, long frozenMillis) {
+        update(player, PENALTIES, 1, VALID_SETS, 0, frozenMillis);
+    }
+
+    /**
+     * Sets the score of a player restored from a snapshot, called before the player thread starts.
+     */
+    void restore(int player, int score) {
+        update(player, SCORE, score - score(player), VALID_SETS, 0, 0);
+    }
+
+    /**
+     * Returns the current score of a player.
+     */
+    public int score(int player) {
+        return (int) counters.get(player * STRIPE + SCORE);
+    }
+
+    /**
+     * Returns the counters of a player from a single update.
+     */
+    public Stats stats(int player) {
+        int base = player * STRIPE;
+        while (true) {
+            long version = counters.get(base + VERSION);
+            if ((version & 1) == 0) {
+                Stats stats = new Stats(counters.get(base + SCORE), counters.get(base + CLAIMS), counters.get(base + VALID_SETS),
+                        counters.get(base + PENALTIES), counters.get(base + FROZEN_MILLIS));
+                if (counters.get(base + VERSION) == version)
+                    return stats;
+            }
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Returns the counters of all the players.
+     */
+    public Stats[] snapshot() {
+        Stats[] stats = new Stats[players];
+        for (int player = 0; player < players; player++)
+            stats[player] = stats(player);
+        return stats;
+    }
+}
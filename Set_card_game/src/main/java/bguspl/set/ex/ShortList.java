@@ -0,0 +1,136 @@
+package bguspl.set.ex;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * A list of distinct small ids (cards or slots) in a short array, with a bitmask of the ids it holds, so it takes a
+ * few bytes per id instead of a boxed Integer and a node or a reference per id, and contains is a single bit test.
+ * Not thread safe.
+ *
+ * @inv the ids are distinct and in [0, universe)
+ * @inv the bit of an id is set in members iff the id is in the list
+ */
+final class ShortList extends AbstractList<Integer> implements RandomAccess {
+
+    private final short[] ids;
+    private final long[] members;
+    private final int universe;
+    private int size;
+
+    /**
+     * @param capacity - the maximal number of ids in the list.
+     * @param universe - the ids are in [0, universe).
+     * @throws IllegalArgumentException - if an id of the universe does not fit in a short.
+     */
+    ShortList(int capacity, int universe) {
+        if (universe > Short.MAX_VALUE + 1)
+            throw new IllegalArgumentException("ids up to " + (universe - 1) + " do not fit in a short");
+        this.ids = new short[capacity];
+        this.members = new long[(universe + 63) >>> 6];
+        this.universe = universe;
+    }
+
+    /**
+     * Makes the list hold the ids 0 to count - 1, in order.
+     */
+    void fill(int count) {
+        clear();
+        for (int id = 0; id < count; id++)
+            add(id);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Integer get(int index) {
+        if (index >= size)
+            throw new IndexOutOfBoundsException("index " + index + " of " + size);
+        return (int) ids[index];
+    }
+
+    /**
+     * Replaces the id at an index with another id of the list, to reorder the list (e.g. to shuffle it).
+     * @pre - the id is in the list.
+     * @throws IllegalArgumentException - if the id is not in the list.
+     */
+    @Override
+    public Integer set(int index, Integer id) {
+        if (!contains(id))
+            throw new IllegalArgumentException("set can only reorder the list, " + id + " is not in it");
+        Integer previous = get(index);
+        ids[index] = (short) (int) id;
+        return previous;
+    }
+
+    @Override
+    public void add(int index, Integer id) {
+        if (index > size)
+            throw new IndexOutOfBoundsException("index " + index + " of " + size);
+        if (id < 0 || id >= universe)
+            throw new IllegalArgumentException(id + " is not in [0, " + universe + ")");
+        if (contains(id))
+            throw new IllegalArgumentException(id + " is already in the list");
+        System.arraycopy(ids, index, ids, index + 1, size - index);
+        ids[index] = (short) (int) id;
+        members[id >>> 6] |= 1L << id;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public Integer remove(int index) {
+        Integer id = get(index);
+        System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+        members[id >>> 6] &= ~(1L << id);
+        size--;
+        modCount++;
+        return id;
+    }
+
+    @Override
+    public boolean remove(Object id) {
+        int index = indexOf(id);
+        if (index < 0)
+            return false;
+        remove(index);
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object id) {
+        if (!(id instanceof Integer))
+            return false;
+        int value = (Integer) id;
+        return value >= 0 && value >>> 6 < members.length && (members[value >>> 6] & 1L << value) != 0;
+    }
+
+    @Override
+    public int indexOf(Object id) {
+        if (!contains(id))
+            return -1;
+        int value = (Integer) id;
+        for (int i = 0; i < size; i++)
+            if (ids[i] == value)
+                return i;
+        return -1;
+    }
+
+    /**
+     * Returns the (approximate) heap size of the list in bytes.
+     */
+    long bytes() {
+        return 24 + TableState.array(2L * ids.length) + TableState.array(8L * members.length);
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(members, 0);
+        size = 0;
+        modCount++;
+    }
+}
@@ -0,0 +1,87 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Base class of the claim arbiters, every player owns one claim slot so no lock is needed.
+ * The player thread is the only writer of its slot and the dealer thread is the only one that clears it.
+ */
+abstract class SlotClaimArbiter implements ClaimArbiter {
+
+    /**
+     * The ordering key of the pending claim of each player (valid iff pending).
+     */
+    private final AtomicLongArray keys;
+
+    /**
+     * 1 iff the player has a pending claim.
+     */
+    private final AtomicIntegerArray pending;
+
+    /**
+     * The number of pending claims.
+     */
+    private final AtomicInteger count = new AtomicInteger();
+
+    SlotClaimArbiter(int players) {
+        keys = new AtomicLongArray(players);
+        pending = new AtomicIntegerArray(players);
+    }
+
+    /**
+     * Returns the ordering key of a claim, the claim with the smallest key is checked first.
+     * @param submitTime - the time (System.nanoTime) the claim was submitted.
+     * @param pressTime  - the time (System.nanoTime) of the key press that completed the claim.
+     */
+    protected abstract long key(long submitTime, long pressTime);
+
+    /**
+     * Returns the player from which the scan for the next claim starts (ties are won by the first one scanned).
+     */
+    protected int firstToScan() {
+        return 0;
+    }
+
+    /**
+     * Called after the claim of a player was taken by the dealer.
+     */
+    protected void taken(int player) {}
+
+    @Override
+    public void submit(int player, long pressTime) {
+        keys.set(player, key(System.nanoTime(), pressTime));
+        if (pending.getAndSet(player, 1) == 0)
+            count.incrementAndGet();
+    }
+
+    @Override
+    public int next() {
+        int players = pending.length();
+        int first = firstToScan();
+        int best = -1;
+        for (int i = 0; i < players; i++) {
+            int player = (first + i) % players;
+            // keys are nano times, so compare them by difference
+            if (pending.get(player) == 1 && (best == -1 || keys.get(player) - keys.get(best) < 0))
+                best = player;
+        }
+        if (best != -1 && pending.compareAndSet(best, 1, 0)) {
+            count.decrementAndGet();
+            taken(best);
+            return best;
+        }
+        return -1;
+    }
+
+    @Override
+    public int size() {
+        return count.get();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return count.get() == 0;
+    }
+}
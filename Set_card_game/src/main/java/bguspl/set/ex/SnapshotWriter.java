@@ -0,0 +1,82 @@
+package bguspl.set.ex;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes game snapshots to a file in the background, so the dealer only pays for copying the state.
+ */
+public class SnapshotWriter {
+
+    private final Logger logger;
+    private final Path file;
+    private final long intervalMillis;
+
+    /**
+     * A single thread so snapshots are written in the order they were taken.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * The time when the next snapshot should be taken (only accessed by the dealer thread).
+     */
+    private long nextSnapshotTime;
+
+    public SnapshotWriter(Logger logger, Path file, long intervalMillis) {
+        this.logger = logger;
+        this.file = file;
+        this.intervalMillis = intervalMillis;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.nextSnapshotTime = System.currentTimeMillis() + intervalMillis;
+    }
+
+    /**
+     * Returns true iff it is time to take another snapshot.
+     */
+    public boolean due() {
+        return System.currentTimeMillis() >= nextSnapshotTime;
+    }
+
+    /**
+     * Writes a snapshot in the background.
+     * @param snapshot - the snapshot to write.
+     */
+    public void write(GameSnapshot snapshot) {
+        nextSnapshotTime = System.currentTimeMillis() + intervalMillis;
+        executor.execute(() -> {
+            try {
+                snapshot.write(file);
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "cannot write snapshot " + file + ": " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Stops the writer after the pending snapshots were written.
+     * @param delete - true iff the snapshot file should be deleted (the game ended, there is nothing to restore).
+     */
+    public void close(boolean delete) {
+        if (delete) executor.execute(() -> {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "cannot delete snapshot " + file + ": " + e.getMessage());
+            }
+        });
+        executor.shutdown();
+        try {
+            executor.awaitTermination(intervalMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ignored) {}
+    }
+}
@@ -3,12 +3,10 @@ package bguspl.set.ex;
 import bguspl.set.Env;
 import bguspl.set.UserInterface;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
 import java.util.stream.Collectors;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.Semaphore;
 
 
 /**
@@ -24,40 +22,118 @@ public class Table extends NullPointerException {
     private final Env env;
 
     /**
-     * Mapping between a slot and the card placed in it (null if none).
+     * The primitive state of the table (and the dealer's deck).
      */
-    protected final Integer[] slotToCard; // card per slot (if any)
+    final TableState state;
 
     /**
-     * Mapping between a card and the slot it is in (null if none).
+     * Mapping between a slot and the card placed in it (TableState.NONE if none).
      */
-    protected final Integer[] cardToSlot; // slot per card (if any)
+    protected final short[] slotToCard; // card per slot (if any)
 
-    /** */
-    protected ArrayBlockingQueue<Integer> PlayersWithSet;
+    /**
+     * Mapping between a card and the slot it is in (TableState.NONE if none).
+     */
+    protected final short[] cardToSlot; // slot per card (if any)
+
+    /**
+     * The pending set claims of the players, in the order the dealer should check them.
+     */
+    protected final ClaimArbiter PlayersWithSet;
+
+    /**
+     * The players' scores and counters.
+     */
+    public final Scoreboard scoreboard;
+
+    /**
+     * The index of the sets on the table (updated with every placed and removed card).
+     */
+    final TableSetIndex setIndex;
+
+    /**
+     * The publisher of the game's events.
+     */
+    public final GameEventPublisher events;
+
+    /**
+     * Shows the table changes in the user interface in the background, at the pace of the table delay.
+     */
+    final TablePresenter presenter;
+
+    /**
+     * The players with a token in each slot, a bitmask of tokenWords longs per slot (guarded by this, unless the
+     * dealer owns the tokens).
+     */
+    private final long[] slotTokens;
+    private final int tokenWords;
+
+    /**
+     * True iff only the dealer thread changes the tokens (see dealerOwnsTokens), so they take no monitor.
+     */
+    private boolean dealerOwnsTokens;
 
-    protected Semaphore  sem;
+    /**
+     * The players of the game, whose chosen slots follow the tokens (see seatPlayers).
+     */
+    private Player[] players;
+
+    /**
+     * The number of cards in a legal set (set by the game's set rule).
+     */
+    protected final int legalSetSize;
 
     /**
      * To avoid using magic numbers. 
      */
-    protected static final int legalSetSize = 3;
     protected static final int oneSecondsInMillis = 1000;
 
     /**
      * Constructor for testing.
      *
      * @param env        - the game environment objects.
-     * @param slotToCard - mapping between a slot and the card placed in it (null if none).
-     * @param cardToSlot - mapping between a card and the slot it is in (null if none).
+     * @param slotToCard - mapping between a slot and the card placed in it (null if none), copied to the table.
+     * @param cardToSlot - mapping between a card and the slot it is in (null if none), copied to the table.
      */
     public Table(Env env, Integer[] slotToCard, Integer[] cardToSlot) {
 
+        this(env, TableState.acquire(slotToCard.length, cardToSlot.length, env.config.players, false));
+        for (int slot = 0; slot < slotToCard.length; slot++)
+            this.slotToCard[slot] = slotToCard[slot] == null ? TableState.NONE : (short) (int) slotToCard[slot];
+        for (int card = 0; card < cardToSlot.length; card++)
+            this.cardToSlot[card] = cardToSlot[card] == null ? TableState.NONE : (short) (int) cardToSlot[card];
+    }
+
+    private Table(Env env, TableState state) {
+
         this.env = env;
-        this.slotToCard = slotToCard;
-        this.cardToSlot = cardToSlot;
-        this.PlayersWithSet = new ArrayBlockingQueue<Integer>(env.config.players);
-        this.sem = new Semaphore(1, true);
+        this.state = state;
+        this.slotToCard = state.slotToCard;
+        this.cardToSlot = state.cardToSlot;
+        this.PlayersWithSet = ClaimArbiter.create(env.config.claimPolicy, env.config.players);
+        this.scoreboard = new Scoreboard(env.config.players);
+        this.legalSetSize = env.util.setSize();
+        this.setIndex = new TableSetIndex(env.util, slotToCard.length, cardToSlot.length, legalSetSize);
+        this.events = new GameEventPublisher();
+        this.presenter = new TablePresenter(env);
+        this.tokenWords = state.tokenWords;
+        this.slotTokens = state.slotTokens;
+    }
+
+    /**
+     * Sets the players whose chosen slots are updated when their tokens are removed from the table.
+     * @param players - the players of the game, by id (filled in before the game starts).
+     */
+    void seatPlayers(Player[] players) {
+        this.players = players;
+    }
+
+    /**
+     * Makes the token methods lock free, called before the game starts by a dealer whose thread is the only one
+     * placing and removing tokens (e.g. the actor dealer).
+     */
+    void dealerOwnsTokens() {
+        dealerOwnsTokens = true;
     }
 
     /**
@@ -67,17 +143,29 @@ public class Table extends NullPointerException {
      */
     public Table(Env env) {
 
-        this(env, new Integer[env.config.tableSize], new Integer[env.config.deckSize]);
+        this(env, TableState.acquire(env.config));
+    }
+
+    /**
+     * Keeps the table's state for the next game if PoolGameState is set, called once the game ended.
+     * @pre - no one uses the table anymore.
+     */
+    void release() {
+        if (env.config.poolGameState)
+            state.release();
     }
 
     /**
      * This method prints all possible legal sets of cards that are currently on the table.
      */
     public void hints() {
-        List<Integer> deck = Arrays.stream(slotToCard).filter(Objects::nonNull).collect(Collectors.toList());
+        List<Integer> deck = new ArrayList<>();
+        for (short card : slotToCard)
+            if (card != TableState.NONE)
+                deck.add((int) card);
         env.util.findSets(deck, Integer.MAX_VALUE).forEach(set -> {
             StringBuilder sb = new StringBuilder().append("Hint: Set found: ");
-            List<Integer> slots = Arrays.stream(set).mapToObj(card -> cardToSlot[card]).sorted().collect(Collectors.toList());
+            List<Integer> slots = Arrays.stream(set).mapToObj(card -> (int) cardToSlot[card]).sorted().collect(Collectors.toList());
             int[][] features = env.util.cardsToFeatures(set);
             System.out.println(sb.append("slots: ").append(slots).append(" features: ").append(Arrays.deepToString(features)));
         });
@@ -90,8 +178,8 @@ public class Table extends NullPointerException {
      */
     public int countCards() {
         int cards = 0;
-        for (Integer card : slotToCard)
-            if (card != null)
+        for (short card : slotToCard)
+            if (card != TableState.NONE)
                 ++cards;
         return cards;
     }
@@ -105,10 +193,73 @@ public class Table extends NullPointerException {
      * @inv The size of the cardToSlot and slotToCard arrays will remain unchanged
      */
     public void placeCard(int card, int slot) {
-        try { Thread.sleep(env.config.tableDelayMillis); } catch (InterruptedException ignored) {}
-        cardToSlot[card] = slot;
-        slotToCard[slot] = card;
-        env.ui.placeCard(card, slot); 
+        cardToSlot[card] = (short) slot;
+        slotToCard[slot] = (short) card;
+        setIndex.add(card);
+        events.publish(GameEvent.Type.CARD_PLACED, -1, slot, card, 0);
+        GameMetrics.INSTANCE.cardDealt();
+        presenter.pause();
+        presenter.show(ui -> ui.placeCard(card, slot));
+    }
+
+    /**
+     * Places the cards of a snapshot on the table, without the placing delay.
+     * @param snapshot - the snapshot to restore.
+     * @post - every slot holds the card it held in the snapshot.
+     */
+    void restore(GameSnapshot snapshot) {
+        for (short card : slotToCard)
+            if (card != TableState.NONE)
+                setIndex.remove(card);
+        Arrays.fill(cardToSlot, TableState.NONE);
+        synchronized (this) {
+            Arrays.fill(slotTokens, 0);
+        }
+        for (int i = 0; i < slotToCard.length; i++) {
+            int slot = i;
+            Integer card = snapshot.cardOfSlot(slot);
+            slotToCard[slot] = card == null ? TableState.NONE : (short) (int) card;
+            if (card != null) {
+                cardToSlot[card] = (short) slot;
+                setIndex.add(card);
+                events.publish(GameEvent.Type.CARD_PLACED, -1, slot, card, 0);
+                presenter.show(ui -> ui.placeCard(card, slot));
+            } else
+                presenter.show(ui -> ui.removeCard(slot));
+        }
+    }
+
+    /**
+     * Replaces the cards in several slots at once, with a single placing delay.
+     * @param slots - the slots to replace (empty slots are filled).
+     * @param cards - the new card of each slot, respectively.
+     * @return - the cards that were replaced (null for a slot that was empty).
+     * @post - every slot holds its new card and has no tokens in the ui.
+     */
+    Integer[] swapCards(int[] slots, int[] cards) {
+        presenter.pause();
+        Integer[] replaced = new Integer[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            int card = slotToCard[slots[i]];
+            if (card != TableState.NONE) {
+                replaced[i] = card;
+                setIndex.remove(card);
+                events.publish(GameEvent.Type.CARD_REMOVED, -1, slots[i], card, 0);
+                clearTokens(slots[i]);
+                cardToSlot[card] = TableState.NONE;
+                slotToCard[slots[i]] = TableState.NONE;
+            }
+        }
+        for (int i = 0; i < slots.length; i++) {
+            cardToSlot[cards[i]] = (short) slots[i];
+            slotToCard[slots[i]] = (short) cards[i];
+            setIndex.add(cards[i]);
+            events.publish(GameEvent.Type.CARD_PLACED, -1, slots[i], cards[i], 0);
+            GameMetrics.INSTANCE.cardDealt();
+            int card = cards[i], slot = slots[i];
+            presenter.show(ui -> ui.placeCard(card, slot));
+        }
+        return replaced;
     }
 
     /**
@@ -118,13 +269,14 @@ public class Table extends NullPointerException {
      * @inv The size of the slotToCard and cardToSlot arrays will remain unchanged
      */
     public void removeCard(int slot) {
-        try {
-            Thread.sleep(env.config.tableDelayMillis);
-        } catch (InterruptedException ignored) {}
-        cardToSlot[slotToCard[slot]] = null;
-        slotToCard[slot] = null; 
-        env.ui.removeTokens(slot);
-        env.ui.removeCard(slot); 
+        int card = slotToCard[slot];
+        setIndex.remove(card);
+        events.publish(GameEvent.Type.CARD_REMOVED, -1, slot, card, 0);
+        clearTokens(slot);
+        cardToSlot[card] = TableState.NONE;
+        slotToCard[slot] = TableState.NONE;
+        presenter.pause();
+        presenter.show(ui -> ui.removeCard(slot));
     }
 
     /**
@@ -135,10 +287,22 @@ public class Table extends NullPointerException {
      * @post The slot parameter will be added to the chosenSlots list of the thePlayer object
      */
     public void placeToken(int player, int slot, Player thePlayer) throws NullPointerException{
-        if(slotToCard[slot] == null)
+        if (dealerOwnsTokens) {
+            addToken(player, slot, thePlayer);
+            return;
+        }
+        synchronized (this) {
+            addToken(player, slot, thePlayer);
+        }
+    }
+
+    private void addToken(int player, int slot, Player thePlayer) {
+        if(slotToCard[slot] == TableState.NONE)
             throw new NullPointerException("tried to place token on empty slot");
+        slotTokens[slot * tokenWords + (player >>> 6)] |= 1L << player;
         thePlayer.chosenSlots.add(slot);
-        env.ui.placeToken(player, slot);
+        events.publish(GameEvent.Type.TOKEN_PLACED, player, slot, -1, 0);
+        presenter.show(ui -> ui.placeToken(player, slot));
     }
 
     /**
@@ -146,25 +310,92 @@ public class Table extends NullPointerException {
      * @param player - the player the token belongs to.
      * @param slot   - the slot from which to remove the token.
      * @return       - true iff a token was successfully removed.
+     * @post The slot parameter is not in the chosenSlots list of the player
      */
     public boolean removeToken(int player, int slot) {
-        //we need to synchronized it so we will return true only if the reomve token was succes.
-        env.ui.removeToken(player, slot);
-        return false;
+        if (dealerOwnsTokens)
+            return takeToken(player, slot);
+        synchronized (this) {
+            return takeToken(player, slot);
+        }
+    }
+
+    private boolean takeToken(int player, int slot) {
+        int word = slot * tokenWords + (player >>> 6);
+        long bit = 1L << player;
+        if ((slotTokens[word] & bit) == 0)
+            return false;
+        slotTokens[word] &= ~bit;
+        players[player].chosenSlots.remove((Integer) slot);
+        events.publish(GameEvent.Type.TOKEN_REMOVED, player, slot, -1, 0);
+        presenter.show(ui -> ui.removeToken(player, slot));
+        return true;
+    }
+
+    /**
+     * Removes all the tokens from a grid slot, touching only the players that have a token there.
+     * @param slot - the slot to clear.
+     * @post no player has the slot in its chosenSlots list
+     */
+    void clearTokens(int slot) {
+        if (dealerOwnsTokens) {
+            takeTokens(slot);
+            return;
+        }
+        synchronized (this) {
+            takeTokens(slot);
+        }
+    }
+
+    private void takeTokens(int slot) {
+        for (int word = slot * tokenWords, base = 0; base < env.config.players; word++, base += 64) {
+            for (long bits = slotTokens[word]; bits != 0; bits &= bits - 1) {
+                int player = base + Long.numberOfTrailingZeros(bits);
+                players[player].chosenSlots.remove((Integer) slot);
+                presenter.show(ui -> ui.removeToken(player, slot));
+            }
+            slotTokens[word] = 0;
+        }
+        events.publish(GameEvent.Type.TOKENS_CLEARED, -1, slot, -1, 0);
+    }
+
+    /**
+     * Returns the number of tokens in a grid slot.
+     */
+    int countTokens(int slot) {
+        if (dealerOwnsTokens)
+            return tokensIn(slot);
+        synchronized (this) {
+            return tokensIn(slot);
+        }
+    }
+
+    private int tokensIn(int slot) {
+        int tokens = 0;
+        for (int word = slot * tokenWords; word < (slot + 1) * tokenWords; word++)
+            tokens += Long.bitCount(slotTokens[word]);
+        return tokens;
+    }
+
+    /**
+     * Returns the number of sets on the table (0 if it is not tracked because sets are not of 3 cards).
+     */
+    public int countSets() {
+        return setIndex.sets();
     }
 
     /**
      * card to slot getter
      */
     public Integer getSlotOfCard(int card){
-        return cardToSlot[card];
+        return cardToSlot[card] == TableState.NONE ? null : (int) cardToSlot[card];
     }
 
     /**
      * slot to card getter
      */
     public Integer getCardOfSlot(int slot){
-        return slotToCard[slot];
+        return slotToCard[slot] == TableState.NONE ? null : (int) slotToCard[slot];
     }
 
 }
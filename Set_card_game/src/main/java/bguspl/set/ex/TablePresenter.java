@@ -0,0 +1,143 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+import bguspl.set.UserInterface;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Shows the changes of the table in the user interface in the background, pacing the cards by the table delay.
+ * The table changes at once and the dealer goes on, the presenter replays the changes in the same order, so the
+ * cards still appear one by one. The presenters of all the tables share a few scheduler threads: the changes of a
+ * table run on one of them at a time, and a pause schedules the rest of the table's changes instead of sleeping.
+ */
+class TablePresenter {
+
+    /**
+     * The threads of all the presenters in the process.
+     */
+    private static final ScheduledExecutorService threads = threads();
+
+    /**
+     * Marks a pause of the table delay in the queue of changes.
+     */
+    private static final Runnable PAUSE = () -> {};
+
+    private final Env env;
+
+    /**
+     * The changes to show, in order.
+     */
+    private final Queue<Runnable> changes = new ConcurrentLinkedQueue<>();
+
+    /**
+     * True iff a thread is showing the changes or a pause is scheduled, so at most one thread shows them.
+     */
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    /**
+     * True iff the game ended, the pending changes are shown without pauses.
+     */
+    private volatile boolean closing;
+
+    /**
+     * True iff the pending changes were shown after the game ended, late changes are shown directly.
+     */
+    private volatile boolean closed;
+
+    TablePresenter(Env env) {
+        this.env = env;
+    }
+
+    private static ScheduledExecutorService threads() {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newScheduledThreadPool(Math.min(4, Runtime.getRuntime().availableProcessors()), runnable -> {
+            Thread thread = new Thread(runnable, "presenter-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Pauses for the table delay before showing the next change (the pace of placing and removing cards).
+     */
+    void pause() {
+        execute(PAUSE);
+    }
+
+    /**
+     * Shows a change after the changes before it.
+     * @param change - the user interface call.
+     */
+    void show(Consumer<UserInterface> change) {
+        execute(() -> change.accept(env.ui));
+    }
+
+    /**
+     * Returns a future of the time (System.currentTimeMillis) the changes made so far were all shown.
+     */
+    CompletableFuture<Long> shown() {
+        CompletableFuture<Long> shown = new CompletableFuture<>();
+        execute(() -> shown.complete(System.currentTimeMillis()));
+        return shown;
+    }
+
+    private void execute(Runnable change) {
+        if (closed) {
+            // the presenter was closed, show late changes (e.g. of terminating players) directly
+            change.run();
+            return;
+        }
+        changes.offer(change);
+        if (draining.compareAndSet(false, true))
+            threads.execute(this::drain);
+    }
+
+    /**
+     * Shows the pending changes until the queue is empty or a pause, which schedules the next drain.
+     */
+    private void drain() {
+        while (true) {
+            for (Runnable change = changes.poll(); change != null; change = changes.poll()) {
+                if (change != PAUSE)
+                    show(change);
+                else if (!closing && env.config.tableDelayMillis > 0) {
+                    threads.schedule(this::drain, env.config.tableDelayMillis, TimeUnit.MILLISECONDS);
+                    return;
+                }
+            }
+            draining.set(false);
+            if (changes.isEmpty() || !draining.compareAndSet(false, true))
+                return;
+        }
+    }
+
+    private void show(Runnable change) {
+        try {
+            change.run();
+        } catch (RuntimeException e) {
+            env.logger.severe("cannot show a table change: " + e);
+        }
+    }
+
+    /**
+     * Shows the pending changes without pausing and stops the presenter.
+     */
+    void close() {
+        closing = true;
+        try {
+            shown().get(Math.max(1000, 2 * env.config.tableDelayMillis), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException | ExecutionException | TimeoutException ignored) {}
+        closed = true;
+    }
+}
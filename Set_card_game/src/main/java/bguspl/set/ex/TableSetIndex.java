@@ -0,0 +1,183 @@
+package bguspl.set.ex;
+
+import bguspl.set.Util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An index of the sets on the table, updated incrementally as cards are placed and removed (sets of 3 cards only).
+ * For every card it counts the pairs on the table that the card completes to a set, so the dealer can tell which
+ * cards to draw for the table to have a set. Only used by the dealer thread.
+ */
+class TableSetIndex {
+
+    /**
+     * Deck cards that make a set together with some cards on the table.
+     */
+    static class Swap {
+
+        /**
+         * The deck cards to place.
+         */
+        final List<Integer> cards;
+
+        /**
+         * The table cards that are part of the set and must stay.
+         */
+        final List<Integer> keep;
+
+        private Swap(List<Integer> cards, List<Integer> keep) {
+            this.cards = cards;
+            this.keep = keep;
+        }
+    }
+
+    private final Util util;
+
+    /**
+     * True iff sets are classic sets of 3 cards (util.thirdCard completes pairs), otherwise the index is empty.
+     */
+    private final boolean enabled;
+
+    /**
+     * The number of cards in a set.
+     */
+    private final int setSize;
+
+    /**
+     * The number of pairs on the table each card completes to a set.
+     */
+    private final short[] completions;
+
+    /**
+     * The cards on the table.
+     */
+    private final ShortList cards;
+
+    /**
+     * The number of sets on the table.
+     */
+    private int sets;
+
+    TableSetIndex(Util util, int tableSize, int deckSize, int setSize) {
+        this.util = util;
+        this.setSize = setSize;
+        this.enabled = deckSize > 1 && util.thirdCard(0, 1) >= 0;
+        // a card completes at most tableSize / 2 pairs of the table
+        this.completions = new short[deckSize];
+        this.cards = new ShortList(tableSize, deckSize);
+    }
+
+    /**
+     * Adds a card placed on the table.
+     */
+    void add(int card) {
+        if (!enabled) return;
+        sets += completions[card];
+        for (int other : cards)
+            completions[util.thirdCard(card, other)]++;
+        cards.add(card);
+    }
+
+    /**
+     * Removes a card removed from the table.
+     */
+    void remove(int card) {
+        if (!enabled) return;
+        cards.remove((Integer) card);
+        for (int other : cards)
+            completions[util.thirdCard(card, other)]--;
+        sets -= completions[card];
+    }
+
+    /**
+     * Returns the number of sets on the table (0 if sets are not of 3 cards).
+     */
+    int sets() {
+        return sets;
+    }
+
+    /**
+     * Finds the fewest deck cards that make a set with cards on the table, for swapping them with other table cards.
+     * @param deck - the cards in the deck.
+     * @return - the cards to place and the table cards to keep, or null if sets are not of 3 cards or the deck cannot
+     *           make a set with the table.
+     */
+    Swap swapForSet(List<Integer> deck) {
+        if (!enabled)
+            return null;
+        boolean[] inDeck = new boolean[completions.length];
+        for (int card : deck)
+            inDeck[card] = true;
+
+        // one deck card completing a pair on the table
+        for (int i = 0; i < cards.size(); i++)
+            for (int j = i + 1; j < cards.size(); j++) {
+                int third = util.thirdCard(cards.get(i), cards.get(j));
+                if (inDeck[third])
+                    return new Swap(Collections.singletonList(third), Arrays.asList(cards.get(i), cards.get(j)));
+            }
+
+        // two deck cards completing a card on the table
+        for (int tableCard : cards)
+            for (int card : deck) {
+                int third = util.thirdCard(tableCard, card);
+                if (third != card && inDeck[third])
+                    return new Swap(Arrays.asList(card, third), Collections.singletonList(tableCard));
+            }
+
+        // a set from the deck alone
+        List<int[]> found = util.findSets(deck, 1);
+        if (found.isEmpty())
+            return null;
+        List<Integer> set = new ArrayList<>();
+        for (int card : found.get(0))
+            set.add(card);
+        return new Swap(set, Collections.emptyList());
+    }
+
+    /**
+     * Picks cards from the deck that create a set on the table.
+     * @param deck  - the cards in the deck.
+     * @param count - the number of empty slots.
+     * @return - up to count cards that together with the table make a set, or an empty list if the table already has
+     *           a set or no such cards fit in the empty slots.
+     */
+    List<Integer> cardsForSet(List<Integer> deck, int count) {
+        if (!enabled || sets > 0 || count <= 0)
+            return Collections.emptyList();
+
+        // a single card completing a pair on the table
+        for (int card : deck)
+            if (completions[card] > 0)
+                return Collections.singletonList(card);
+
+        // two cards completing a card on the table
+        if (count >= 2) {
+            boolean[] inDeck = new boolean[completions.length];
+            for (int card : deck)
+                inDeck[card] = true;
+            for (int tableCard : cards)
+                for (int card : deck) {
+                    int third = util.thirdCard(tableCard, card);
+                    if (third != card && inDeck[third])
+                        return Arrays.asList(card, third);
+                }
+        }
+
+        // a set from the deck alone
+        if (count >= setSize) {
+            List<int[]> found = util.findSets(deck, 1);
+            if (!found.isEmpty()) {
+                List<Integer> set = new ArrayList<>();
+                for (int card : found.get(0))
+                    set.add(card);
+                return set;
+            }
+        }
+        return Collections.emptyList();
+    }
+}
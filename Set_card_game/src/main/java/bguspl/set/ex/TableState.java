@@ -0,0 +1,110 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The state of a table in primitive arrays: the card in each slot, the slot of each card, the players' tokens in
+ * each slot (a bitmask of tokenWords longs per slot) and the dealer's deck. With PoolGameState the state of an ended
+ * game is kept and reused by the next game of the same shape, so games do not allocate their state.
+ *
+ * @inv slotToCard[x] == y iff cardToSlot[y] == x, NONE marks an empty slot and a card not on the table
+ */
+final class TableState {
+
+    static final short NONE = -1;
+
+    final short[] slotToCard;
+    final short[] cardToSlot;
+    final long[] slotTokens;
+    final int tokenWords;
+    final ShortList deck;
+
+    /**
+     * The released states by shape (see key), when pooling is enabled.
+     */
+    private static final ConcurrentHashMap<Long, Queue<TableState>> pool = new ConcurrentHashMap<>();
+
+    /**
+     * @throws IllegalArgumentException - if a card or a slot does not fit in a short (more than 32768 of them).
+     */
+    private TableState(int tableSize, int deckSize, int players) {
+        checkSize(tableSize, deckSize);
+        this.slotToCard = new short[tableSize];
+        this.cardToSlot = new short[deckSize];
+        this.tokenWords = (players + 63) >>> 6;
+        this.slotTokens = new long[tableSize * tokenWords];
+        this.deck = new ShortList(deckSize, deckSize);
+        reset();
+    }
+
+    /**
+     * Returns a state for a new game: an empty table and a full deck.
+     * @param pooled - true iff a released state of the same shape may be reused.
+     * @throws IllegalArgumentException - if a card or a slot does not fit in a short (more than 32768 of them).
+     */
+    static TableState acquire(int tableSize, int deckSize, int players, boolean pooled) {
+        TableState state = null;
+        if (pooled) {
+            Queue<TableState> released = pool.get(key(tableSize, deckSize, (players + 63) >>> 6));
+            state = released == null ? null : released.poll();
+        }
+        if (state == null)
+            return new TableState(tableSize, deckSize, players);
+        state.reset();
+        return state;
+    }
+
+    static TableState acquire(Config config) {
+        return acquire(config.tableSize, config.deckSize, config.players, config.poolGameState);
+    }
+
+    /**
+     * Keeps the state for the next game of the same shape, called once the game ended.
+     * @pre - no one uses the state anymore.
+     */
+    void release() {
+        pool.computeIfAbsent(key(slotToCard.length, cardToSlot.length, tokenWords), shape -> new ConcurrentLinkedQueue<>())
+                .offer(this);
+    }
+
+    /**
+     * Checks that the slots of a table and the cards of a deck fit in short ids.
+     * @throws IllegalArgumentException - if there are more than 32768 slots or cards.
+     */
+    static void checkSize(int tableSize, int deckSize) {
+        if (deckSize > Short.MAX_VALUE + 1 || tableSize > Short.MAX_VALUE + 1)
+            throw new IllegalArgumentException("a table of " + tableSize + " slots and a deck of " + deckSize
+                    + " cards do not fit in short ids");
+    }
+
+    private void reset() {
+        Arrays.fill(slotToCard, NONE);
+        Arrays.fill(cardToSlot, NONE);
+        Arrays.fill(slotTokens, 0);
+        deck.fill(cardToSlot.length);
+    }
+
+    private static long key(int tableSize, int deckSize, int tokenWords) {
+        return (long) tableSize << 42 | (long) deckSize << 21 | tokenWords;
+    }
+
+    /**
+     * Returns the (approximate) heap size of the state's arrays in bytes.
+     */
+    long bytes() {
+        return array(2L * slotToCard.length) + array(2L * cardToSlot.length) + array(8L * slotTokens.length)
+                + deck.bytes();
+    }
+
+    /**
+     * Returns the heap size of an array with an object header of 16 bytes, aligned to 8 bytes.
+     */
+    static long array(long payload) {
+        return (16 + payload + 7) & ~7L;
+    }
+}
@@ -0,0 +1,22 @@
+package bguspl.set.ex;
+
+/**
+ * The dealer's verdict on a set claim.
+ */
+public enum Verdict {
+
+    /**
+     * The claimed cards form a set, the player gets a point.
+     */
+    SET,
+
+    /**
+     * The claimed cards do not form a set, the player gets a penalty.
+     */
+    NOT_A_SET,
+
+    /**
+     * Some of the claimed cards left the table before the claim was checked, the claim is ignored.
+     */
+    STALE
+}
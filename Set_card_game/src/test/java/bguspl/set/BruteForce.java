@@ -0,0 +1,138 @@
+package bguspl.set;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+
+/**
+ * Slow reference implementations of the set rules, straight from their definitions on the cards' features,
+ * to check the bitwise validators against.
+ */
+final class BruteForce {
+
+    private BruteForce() {}
+
+    static Config config(int featureSize, int featureCount, String setRule) {
+        Properties properties = new Properties();
+        properties.setProperty("FeatureSize", Integer.toString(featureSize));
+        properties.setProperty("FeatureCount", Integer.toString(featureCount));
+        properties.setProperty("SetRule", setRule);
+        return new Config(Logger.getLogger("test"), properties);
+    }
+
+    /**
+     * Returns the value of a feature of a card, from the card id in base featureSize (the first feature is the
+     * most significant digit).
+     */
+    static int feature(Config config, int card, int feature) {
+        for (int i = config.featureCount - 1; i > feature; i--)
+            card /= config.featureSize;
+        return card % config.featureSize;
+    }
+
+    static boolean same(Config config, int[] cards, int feature) {
+        for (int card : cards)
+            if (feature(config, card, feature) != feature(config, cards[0], feature))
+                return false;
+        return true;
+    }
+
+    static boolean different(Config config, int[] cards, int feature) {
+        for (int i = 0; i < cards.length; i++)
+            for (int j = i + 1; j < cards.length; j++)
+                if (feature(config, cards[i], feature) == feature(config, cards[j], feature))
+                    return false;
+        return true;
+    }
+
+    /**
+     * Checks a set of featureSize cards against one constraint per feature: same, different, either or any.
+     */
+    static boolean test(Config config, String[] constraints, int[] cards) {
+        for (int feature = 0; feature < config.featureCount; feature++) {
+            boolean same = same(config, cards, feature), different = different(config, cards, feature);
+            switch (constraints[feature]) {
+                case "same": if (!same) return false; break;
+                case "different": if (!different) return false; break;
+                case "either": if (!same && !different) return false; break;
+                default: break;
+            }
+        }
+        return true;
+    }
+
+    static String[] classic(Config config) {
+        String[] constraints = new String[config.featureCount];
+        Arrays.fill(constraints, "either");
+        return constraints;
+    }
+
+    /**
+     * Returns the card that completes a classic set with two cards, for 3 choices per feature.
+     */
+    static int third(Config config, int first, int second) {
+        int card = 0;
+        for (int feature = 0; feature < config.featureCount; feature++) {
+            int a = feature(config, first, feature), b = feature(config, second, feature);
+            card = card * 3 + (a == b ? a : 3 - a - b);
+        }
+        return card;
+    }
+
+    /**
+     * Checks an ultra set: 4 distinct cards that split into two pairs completed by the same card, not one of them.
+     */
+    static boolean ultra(Config config, int[] cards) {
+        if (Arrays.stream(cards).distinct().count() != 4)
+            return false;
+        int[][] splits = {{0, 1, 2, 3}, {0, 2, 1, 3}, {0, 3, 1, 2}};
+        for (int[] split : splits) {
+            int third = third(config, cards[split[0]], cards[split[1]]);
+            if (third == third(config, cards[split[2]], cards[split[3]]) && Arrays.stream(cards).noneMatch(card -> card == third))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns every combination of size cards of the deck that passes the check, each one sorted by card id.
+     */
+    static List<List<Integer>> sets(List<Integer> deck, int size, Predicate<int[]> isSet) {
+        List<List<Integer>> sets = new ArrayList<>();
+        int[] combination = new int[size];
+        collect(deck, 0, 0, combination, isSet, sets);
+        return sets;
+    }
+
+    private static void collect(List<Integer> deck, int from, int depth, int[] combination, Predicate<int[]> isSet,
+                                List<List<Integer>> sets) {
+        if (depth == combination.length) {
+            int[] set = combination.clone();
+            Arrays.sort(set);
+            if (isSet.test(set))
+                sets.add(asList(set));
+            return;
+        }
+        for (int i = from; i < deck.size(); i++) {
+            combination[depth] = deck.get(i);
+            collect(deck, i + 1, depth + 1, combination, isSet, sets);
+        }
+    }
+
+    static List<Integer> asList(int[] set) {
+        List<Integer> list = new ArrayList<>(set.length);
+        for (int card : set)
+            list.add(card);
+        return list;
+    }
+
+    static List<Integer> deck(Config config) {
+        List<Integer> deck = new ArrayList<>(config.deckSize);
+        for (int card = 0; card < config.deckSize; card++)
+            deck.add(card);
+        return deck;
+    }
+}
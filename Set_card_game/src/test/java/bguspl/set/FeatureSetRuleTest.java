@@ -0,0 +1,99 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the compiled feature constraints against brute force, for the packed and the unpacked cards.
+ */
+class FeatureSetRuleTest {
+
+    @Test
+    void customConstraintsOnEveryTriple() {
+        String[][] rules = {{"same", "either", "different", "any"}, {"any", "any", "any", "any"},
+                {"different", "different", "different", "different"}, {"same", "same", "same", "either"}};
+        Config config = BruteForce.config(3, 4, "classic");
+        PackedCards cards = new PackedCards(config);
+        for (String[] constraints : rules) {
+            FeatureSetRule rule = new FeatureSetRule(cards, constraints);
+            List<Integer> deck = BruteForce.deck(config);
+            Predicate<int[]> isSet = set -> BruteForce.test(config, constraints, set);
+            assertEquals(BruteForce.sets(deck, 3, isSet), BruteForce.sets(deck, 3, rule::test), String.join(",", constraints));
+            Collections.shuffle(deck, new Random(3));
+            List<Integer> table = new ArrayList<>(deck.subList(0, 40));
+            assertEquals(new HashSet<>(BruteForce.sets(table, 3, isSet)),
+                    new HashSet<>(asLists(rule.findSets(table, Integer.MAX_VALUE))), String.join(",", constraints));
+        }
+    }
+
+    @Test
+    void fourChoicesOnEveryQuadruple() {
+        Config config = BruteForce.config(4, 3, "classic");
+        PackedCards cards = new PackedCards(config);
+        String[][] rules = {BruteForce.classic(config), {"same", "different", "any"}};
+        for (String[] constraints : rules) {
+            FeatureSetRule rule = new FeatureSetRule(cards, constraints);
+            List<Integer> deck = BruteForce.deck(config);
+            List<List<Integer>> expected = BruteForce.sets(deck, 4, set -> BruteForce.test(config, constraints, set));
+            assertFalse(expected.isEmpty());
+            assertEquals(expected, BruteForce.sets(deck, 4, rule::test), String.join(",", constraints));
+            assertFalse(rule.completesPairs());
+            assertEquals(new HashSet<>(expected), new HashSet<>(asLists(rule.findSets(deck, Integer.MAX_VALUE))));
+        }
+    }
+
+    @Test
+    void unpackedCardsAgreeWithBruteForce() {
+        Config config = BruteForce.config(33, 2, "classic");
+        String[] constraints = {"either", "different"};
+        FeatureSetRule rule = new FeatureSetRule(new PackedCards(config), constraints);
+        Random random = new Random(4);
+        int sets = 0;
+        for (int trial = 0; trial < 2000; trial++) {
+            int[] set = new int[33];
+            int same = random.nextInt(33), offset = random.nextInt(33);
+            for (int i = 0; i < set.length; i++) {
+                // a valid set with a few cards replaced by random (usually clashing) cards
+                int first = trial % 2 == 0 ? same : (i + offset) % 33;
+                set[i] = random.nextInt(8) == 0 ? random.nextInt(config.deckSize) : first * 33 + i;
+            }
+            boolean expected = BruteForce.test(config, constraints, set);
+            assertEquals(expected, rule.test(set));
+            if (expected) sets++;
+        }
+        assertTrue(sets > 0 && sets < 2000);
+    }
+
+    @Test
+    void classicRuleCompletesPairs() {
+        PackedCards cards = new PackedCards(BruteForce.config(3, 4, "classic"));
+        assertTrue(FeatureSetRule.classic(cards).completesPairs());
+        assertFalse(new FeatureSetRule(cards, new String[]{"same", "either", "either", "either"}).completesPairs());
+    }
+
+    @Test
+    void malformedRulesAreRejected() {
+        PackedCards cards = new PackedCards(BruteForce.config(3, 4, "classic"));
+        assertThrows(IllegalArgumentException.class, () -> new FeatureSetRule(cards, new String[]{"same", "any"}));
+        assertThrows(IllegalArgumentException.class,
+                () -> new FeatureSetRule(cards, new String[]{"same", "any", "any", "odd"}));
+    }
+
+    private static List<List<Integer>> asLists(List<int[]> sets) {
+        List<List<Integer>> lists = new ArrayList<>();
+        for (int[] set : sets)
+            lists.add(BruteForce.asList(set));
+        return lists;
+    }
+}
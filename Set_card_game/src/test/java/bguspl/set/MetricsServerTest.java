@@ -0,0 +1,65 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsServerTest {
+
+    private MetricsServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MetricsServer(Logger.getLogger("test"), "localhost", 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void listensOnLoopbackOnly() {
+        assertTrue(server.address().getAddress().isLoopbackAddress());
+        assertTrue(server.port() > 0);
+    }
+
+    @Test
+    void exportsAllFamilies() throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.port() + "/metrics").openConnection();
+        assertEquals(200, connection.getResponseCode());
+        assertTrue(connection.getContentType().startsWith("text/plain; version=0.0.4"));
+        String body = read(connection.getInputStream());
+        String[][] families = {
+                {"set_tables_active", "gauge"}, {"set_players_active", "gauge"}, {"set_table_state_bytes", "gauge"},
+                {"set_games_total", "counter"}, {"set_claims_total", "counter"}, {"set_verdicts_total", "counter"},
+                {"set_penalties_total", "counter"}, {"set_reshuffles_total", "counter"}, {"set_cards_dealt_total", "counter"},
+                {"set_claim_backlog", "gauge"}, {"set_player_key_queue_depth", "gauge"},
+                {"set_player_key_queue_depth_max", "gauge"}, {"set_verdict_latency_seconds", "histogram"},
+                {"set_jvm_threads", "gauge"}};
+        for (String[] family : families)
+            assertTrue(body.contains("# TYPE " + family[0] + " " + family[1] + "\n"), family[0] + " is not exported");
+        assertTrue(body.contains("set_verdict_latency_seconds_bucket{le=\"+Inf\"} "));
+    }
+
+    private static String read(InputStream in) throws IOException {
+        try (InputStream body = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            for (int read; (read = body.read(buffer)) > 0; )
+                out.write(buffer, 0, read);
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PackedCardsTest {
+
+    @Test
+    void featuresAreTheDigitsOfTheCard() {
+        Config config = BruteForce.config(4, 3, "classic");
+        PackedCards cards = new PackedCards(config);
+        for (int card = 0; card < config.deckSize; card++)
+            for (int feature = 0; feature < config.featureCount; feature++) {
+                assertEquals(BruteForce.feature(config, card, feature), cards.features[card][feature]);
+                assertEquals(1L << (feature * 4 + cards.features[card][feature]),
+                        cards.packed[card] & 0xfL << (feature * 4));
+            }
+    }
+
+    @Test
+    void thirdCardOfEveryPair() {
+        Config config = BruteForce.config(3, 4, "classic");
+        PackedCards cards = new PackedCards(config);
+        for (int first = 0; first < config.deckSize; first++)
+            for (int second = 0; second < config.deckSize; second++) {
+                int third = BruteForce.third(config, first, second);
+                assertEquals(third, cards.third(first, second));
+                assertEquals(cards.packed[third], cards.third(cards.packed[first], cards.packed[second]));
+            }
+    }
+
+    @Test
+    void cardsThatDoNotFitInALongAreNotPacked() {
+        PackedCards cards = new PackedCards(BruteForce.config(33, 2, "classic"));
+        assertNull(cards.packed);
+        assertArrayEquals(new int[]{1, 2}, cards.features[33 + 2]);
+    }
+}
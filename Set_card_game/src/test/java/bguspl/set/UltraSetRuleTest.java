@@ -0,0 +1,67 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the ultra rule's bitwise test and pair grouping search against brute force over the 81 card deck.
+ */
+class UltraSetRuleTest {
+
+    private final Config config = BruteForce.config(3, 4, "ultra");
+    private final UltraSetRule rule = new UltraSetRule(new PackedCards(config));
+
+    @Test
+    void testEveryQuadruple() {
+        int quadruples = 0, sets = 0;
+        int[] set = new int[4];
+        for (set[0] = 0; set[0] < config.deckSize; set[0]++)
+            for (set[1] = set[0] + 1; set[1] < config.deckSize; set[1]++)
+                for (set[2] = set[1] + 1; set[2] < config.deckSize; set[2]++)
+                    for (set[3] = set[2] + 1; set[3] < config.deckSize; set[3]++, quadruples++) {
+                        boolean expected = BruteForce.ultra(config, set);
+                        assertEquals(expected, rule.test(set), "cards " + BruteForce.asList(set));
+                        if (expected) sets++;
+                    }
+        assertEquals(1663740, quadruples);
+        assertTrue(sets > 0);
+    }
+
+    @Test
+    void repeatedCardsAreNotASet() {
+        assertFalse(rule.test(new int[]{0, 0, 1, 2}));
+        assertFalse(rule.test(new int[]{0, 1, 2}));
+    }
+
+    @Test
+    void findSetsOfTables() {
+        Random random = new Random(5);
+        for (int table = 0; table < 100; table++) {
+            List<Integer> deck = BruteForce.deck(config);
+            Collections.shuffle(deck, random);
+            deck = new ArrayList<>(deck.subList(0, 12));
+            List<List<Integer>> expected = BruteForce.sets(deck, 4, set -> BruteForce.ultra(config, set));
+            Set<List<Integer>> found = new HashSet<>();
+            for (int[] set : rule.findSets(deck, Integer.MAX_VALUE))
+                assertTrue(found.add(BruteForce.asList(set)), "set found twice");
+            assertEquals(new HashSet<>(expected), found);
+            assertEquals(Math.min(1, expected.size()), rule.findSets(deck, 1).size());
+        }
+    }
+
+    @Test
+    void needsThreeChoices() {
+        assertThrows(IllegalArgumentException.class, () -> new UltraSetRule(new PackedCards(BruteForce.config(4, 3, "ultra"))));
+    }
+}
@@ -0,0 +1,75 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the classic rule's bitwise set test and set search against brute force over the full 81 card deck.
+ */
+class UtilImplTest {
+
+    private final Config config = BruteForce.config(3, 4, "classic");
+    private final Util util = new UtilImpl(config);
+
+    @Test
+    void testSetOfEveryTriple() {
+        String[] classic = BruteForce.classic(config);
+        List<List<Integer>> expected = BruteForce.sets(BruteForce.deck(config), 3, set -> BruteForce.test(config, classic, set));
+        Set<List<Integer>> sets = new HashSet<>(expected);
+        assertEquals(1080, sets.size());
+        int triples = 0;
+        for (int a = 0; a < config.deckSize; a++)
+            for (int b = a + 1; b < config.deckSize; b++)
+                for (int c = b + 1; c < config.deckSize; c++, triples++)
+                    assertEquals(sets.contains(BruteForce.asList(new int[]{a, b, c})), util.testSet(new int[]{a, b, c}),
+                            "cards " + a + ", " + b + ", " + c);
+        assertEquals(85320, triples);
+    }
+
+    @Test
+    void thirdCardCompletesASet() {
+        assertEquals(3, util.setSize());
+        for (int first = 0; first < config.deckSize; first++)
+            for (int second = first + 1; second < config.deckSize; second++)
+                assertTrue(util.testSet(new int[]{first, second, util.thirdCard(first, second)}));
+    }
+
+    @Test
+    void findSetsOfTheFullDeck() {
+        List<Integer> deck = BruteForce.deck(config);
+        Collections.shuffle(deck, new Random(1));
+        String[] classic = BruteForce.classic(config);
+        assertEquals(new HashSet<>(BruteForce.sets(deck, 3, set -> BruteForce.test(config, classic, set))),
+                found(deck, Integer.MAX_VALUE));
+    }
+
+    @Test
+    void findSetsOfTables() {
+        String[] classic = BruteForce.classic(config);
+        Random random = new Random(2);
+        for (int table = 0; table < 200; table++) {
+            List<Integer> deck = BruteForce.deck(config);
+            Collections.shuffle(deck, random);
+            deck = new ArrayList<>(deck.subList(0, 12));
+            List<List<Integer>> expected = BruteForce.sets(deck, 3, set -> BruteForce.test(config, classic, set));
+            assertEquals(new HashSet<>(expected), found(deck, Integer.MAX_VALUE));
+            assertEquals(Math.min(1, expected.size()), util.findSets(deck, 1).size());
+        }
+    }
+
+    private Set<List<Integer>> found(List<Integer> deck, int count) {
+        Set<List<Integer>> found = new HashSet<>();
+        for (int[] set : util.findSets(deck, count))
+            assertTrue(found.add(BruteForce.asList(set)), "set found twice");
+        return found;
+    }
+}
@@ -0,0 +1,82 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClaimArbiterTest {
+
+    /**
+     * Submits the claims of the players in order, a millisecond apart so their submit times differ.
+     */
+    private static void submit(ClaimArbiter arbiter, int[] players, long[] pressTimes) throws InterruptedException {
+        for (int i = 0; i < players.length; i++) {
+            arbiter.submit(players[i], pressTimes[i]);
+            Thread.sleep(1);
+        }
+    }
+
+    private static int[] drain(ClaimArbiter arbiter, int count) {
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++)
+            order[i] = arbiter.next();
+        assertEquals(-1, arbiter.next());
+        assertTrue(arbiter.isEmpty());
+        return order;
+    }
+
+    @Test
+    void fifoChecksBySubmitTime() throws InterruptedException {
+        ClaimArbiter arbiter = ClaimArbiter.create("fifo", 4);
+        submit(arbiter, new int[]{2, 0, 3, 1}, new long[]{40, 30, 20, 10});
+        assertEquals(4, arbiter.size());
+        assertArrayEquals(new int[]{2, 0, 3, 1}, drain(arbiter, 4));
+    }
+
+    @Test
+    void earliestPressChecksByPressTime() throws InterruptedException {
+        ClaimArbiter arbiter = ClaimArbiter.create("earliest-press", 4);
+        submit(arbiter, new int[]{2, 0, 3, 1}, new long[]{40, 30, 10, 20});
+        assertArrayEquals(new int[]{3, 1, 0, 2}, drain(arbiter, 4));
+    }
+
+    @Test
+    void earliestPressComparesWrappingNanoTimes() throws InterruptedException {
+        ClaimArbiter arbiter = ClaimArbiter.create("earliest-press", 2);
+        submit(arbiter, new int[]{0, 1}, new long[]{Long.MIN_VALUE + 5, Long.MAX_VALUE - 5});
+        assertArrayEquals(new int[]{1, 0}, drain(arbiter, 2));
+    }
+
+    @Test
+    void roundRobinStartsAfterTheLastPlayerChecked() throws InterruptedException {
+        ClaimArbiter arbiter = ClaimArbiter.create("round-robin", 4);
+        submit(arbiter, new int[]{3, 2, 0}, new long[]{10, 20, 30});
+        assertEquals(0, arbiter.next());
+        // player 0 claims again, it waits for the players after it
+        arbiter.submit(0, 40);
+        assertEquals(2, arbiter.next());
+        arbiter.submit(1, 50);
+        assertEquals(3, arbiter.next());
+        assertArrayEquals(new int[]{0, 1}, drain(arbiter, 2));
+    }
+
+    @Test
+    void aPlayerHasOneClaimAtATime() throws InterruptedException {
+        ClaimArbiter arbiter = ClaimArbiter.create("fifo", 3);
+        submit(arbiter, new int[]{1, 2, 1}, new long[]{10, 20, 30});
+        assertEquals(2, arbiter.size());
+        // the second claim of player 1 replaced the first one and its submit time
+        assertArrayEquals(new int[]{2, 1}, drain(arbiter, 2));
+    }
+
+    @Test
+    void policyNamesAreCaseInsensitive() {
+        assertTrue(ClaimArbiter.create(" FIFO ", 1) instanceof FifoClaimArbiter);
+        assertTrue(ClaimArbiter.create("Earliest-Press", 1) instanceof EarliestPressClaimArbiter);
+        assertTrue(ClaimArbiter.create("round-robin", 1) instanceof RoundRobinClaimArbiter);
+        assertThrows(IllegalArgumentException.class, () -> ClaimArbiter.create("lifo", 1));
+    }
+}
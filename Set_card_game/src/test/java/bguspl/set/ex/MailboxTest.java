@@ -0,0 +1,91 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MailboxTest {
+
+    @Test
+    void commandsArePolledInOrderAcrossTheWrap() {
+        Mailbox mailbox = new Mailbox(4);
+        assertTrue(mailbox.isEmpty());
+        assertEquals(Mailbox.EMPTY, mailbox.poll());
+        long next = 0;
+        for (int round = 0; round < 100; round++) {
+            int count = round % 4 + 1;
+            for (int i = 0; i < count; i++)
+                assertTrue(mailbox.offer(next + i));
+            for (int i = 0; i < count; i++) {
+                assertFalse(mailbox.isEmpty());
+                assertEquals(next++, mailbox.poll());
+            }
+            assertTrue(mailbox.isEmpty());
+            assertEquals(Mailbox.EMPTY, mailbox.poll());
+        }
+    }
+
+    @Test
+    void aFullMailboxRejectsCommands() {
+        Mailbox mailbox = new Mailbox(3); // rounded up to 4
+        for (int i = 0; i < 4; i++)
+            assertTrue(mailbox.offer(i));
+        assertFalse(mailbox.offer(4));
+        assertEquals(0, mailbox.poll());
+        assertTrue(mailbox.offer(4));
+        assertFalse(mailbox.offer(5));
+        for (int i = 1; i <= 4; i++)
+            assertEquals(i, mailbox.poll());
+        assertEquals(Mailbox.EMPTY, mailbox.poll());
+    }
+
+    @Test
+    void capacityIsRoundedUpToAPowerOfTwo() {
+        Mailbox mailbox = new Mailbox(5);
+        for (int i = 0; i < 8; i++)
+            assertTrue(mailbox.offer(i));
+        assertFalse(mailbox.offer(8));
+    }
+
+    @Test
+    @Timeout(60) // a lost command would keep the consumer waiting
+    void manyProducersLoseAndDuplicateNothing() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 50000;
+        Mailbox mailbox = new Mailbox(16);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            long producer = p;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++)
+                    while (!mailbox.offer(producer << 32 | i))
+                        Thread.yield();
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        // every producer's commands arrive once each, in the order it offered them
+        int[] next = new int[producers];
+        for (int received = 0; received < producers * perProducer; ) {
+            long command = mailbox.poll();
+            if (command == Mailbox.EMPTY) {
+                Thread.yield();
+                continue;
+            }
+            int producer = (int) (command >>> 32);
+            assertEquals(next[producer]++, (int) command);
+            received++;
+        }
+        for (Thread thread : threads)
+            thread.join();
+        assertTrue(mailbox.isEmpty());
+        for (int p = 0; p < producers; p++)
+            assertEquals(perProducer, next[p]);
+    }
+}
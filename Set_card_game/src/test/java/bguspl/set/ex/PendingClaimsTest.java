@@ -0,0 +1,106 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PendingClaimsTest {
+
+    @Test
+    void aVerdictAfterTheTimeoutIsIgnored() throws Exception {
+        PendingClaims claims = new PendingClaims(1);
+        PendingClaims.Claim claim = new PendingClaims.Claim();
+        assertTrue(claims.open(0, claim, 10));
+        ExecutionException e = assertThrows(ExecutionException.class, () -> claim.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof TimeoutException);
+        // the dealer takes the claim from the arbiter late and does not check it
+        assertSame(claim, claims.take(0));
+        assertFalse(claim.check());
+        assertFalse(claim.complete(Verdict.SET));
+        assertTrue(claim.isCompletedExceptionally());
+    }
+
+    @Test
+    void aCheckedClaimDoesNotTimeOut() throws Exception {
+        PendingClaims claims = new PendingClaims(1);
+        PendingClaims.Claim claim = new PendingClaims.Claim();
+        claims.open(0, claim, 10);
+        assertTrue(claims.take(0).check());
+        Thread.sleep(50);
+        assertFalse(claim.isDone());
+        assertFalse(claim.cancel(false));
+        assertTrue(claim.complete(Verdict.SET));
+        assertEquals(Verdict.SET, claim.get());
+    }
+
+    @Test
+    void aCancelledClaimIsNotChecked() {
+        PendingClaims.Claim claim = new PendingClaims.Claim();
+        assertTrue(claim.cancel(false));
+        assertFalse(claim.check());
+        assertTrue(claim.isCancelled());
+    }
+
+    @Test
+    void cancelCompletesEveryPendingClaim() {
+        PendingClaims claims = new PendingClaims(3);
+        ClaimArbiter arbiter = ClaimArbiter.create("fifo", 3);
+        PendingClaims.Claim[] futures = new PendingClaims.Claim[3];
+        for (int player = 0; player < 3; player++) {
+            futures[player] = new PendingClaims.Claim();
+            claims.open(player, futures[player], 0);
+        }
+        arbiter.submit(0, 0);
+        arbiter.submit(2, 0);
+        claims.cancel(arbiter);
+        assertTrue(arbiter.isEmpty());
+        assertTrue(futures[0].isCancelled());
+        assertFalse(futures[1].isDone());
+        assertTrue(futures[2].isCancelled());
+        claims.cancelAll();
+        assertTrue(futures[1].isCancelled());
+        for (int player = 0; player < 3; player++)
+            assertNull(claims.take(player));
+    }
+
+    @Test
+    void aClaimTakesOverTheArbiterEntryOfATimedOutOne() throws Exception {
+        PendingClaims claims = new PendingClaims(1);
+        PendingClaims.Claim first = new PendingClaims.Claim();
+        assertTrue(claims.open(0, first, 10));
+        assertThrows(IllegalStateException.class, () -> claims.open(0, new PendingClaims.Claim(), 0));
+        assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        PendingClaims.Claim second = new PendingClaims.Claim();
+        assertFalse(claims.open(0, second, 0));
+        assertSame(second, claims.take(0));
+    }
+
+    @Test
+    void aClaimGetsOneVerdictWhenTheTimeoutRacesTheDealer() throws Exception {
+        PendingClaims claims = new PendingClaims(1);
+        for (int i = 0; i < 1000; i++) {
+            PendingClaims.Claim claim = new PendingClaims.Claim();
+            claims.open(0, claim, 1);
+            long checkAt = System.nanoTime() + ThreadLocalRandom.current().nextLong(2000000);
+            while (System.nanoTime() < checkAt);
+            PendingClaims.Claim taken = claims.take(0);
+            if (taken.check()) {
+                assertTrue(taken.complete(Verdict.NOT_A_SET));
+                assertEquals(Verdict.NOT_A_SET, taken.get());
+            } else {
+                ExecutionException e = assertThrows(ExecutionException.class, () -> taken.get(5, TimeUnit.SECONDS));
+                assertTrue(e.getCause() instanceof TimeoutException);
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PressQueueTest {
+
+    @Test
+    void pressesAreTakenInOrderAcrossTheWrap() {
+        PressQueue queue = new PressQueue(3);
+        int next = 0;
+        int taken = 0;
+        for (int round = 0; round < 50; round++) {
+            while (!queue.isFull())
+                queue.add(next % 12, 1000L * next++);
+            assertEquals(3, queue.size());
+            for (int i = 0; i < round % 3 + 1; i++) {
+                assertEquals(taken % 12, queue.slot());
+                assertEquals(1000L * taken++, queue.time());
+                queue.remove();
+            }
+        }
+        assertEquals(next - taken, queue.size());
+    }
+
+    @Test
+    void clearEmptiesTheQueue() {
+        PressQueue queue = new PressQueue(2);
+        assertTrue(queue.isEmpty());
+        queue.add(Short.MAX_VALUE, 1);
+        assertEquals(Short.MAX_VALUE, queue.slot());
+        queue.add(0, 2);
+        queue.remove();
+        queue.clear();
+        assertTrue(queue.isEmpty());
+        queue.add(5, 3);
+        queue.add(6, 4);
+        assertTrue(queue.isFull());
+        assertEquals(5, queue.slot());
+        assertEquals(3, queue.time());
+        queue.remove();
+        assertFalse(queue.isFull());
+        assertEquals(6, queue.slot());
+    }
+}
@@ -0,0 +1,89 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShortListTest {
+
+    @Test
+    void fillHoldsTheIdsInOrder() {
+        ShortList list = new ShortList(100, 100);
+        list.fill(70);
+        assertEquals(70, list.size());
+        for (int id = 0; id < 70; id++) {
+            assertEquals(id, (int) list.get(id));
+            assertTrue(list.contains(id));
+        }
+        assertFalse(list.contains(70));
+        assertFalse(list.contains(-1));
+        assertFalse(list.contains(1000));
+        assertFalse(list.contains("0"));
+    }
+
+    @Test
+    void randomChangesMatchAnArrayList() {
+        Random random = new Random(7);
+        ShortList list = new ShortList(200, 200);
+        List<Integer> expected = new ArrayList<>();
+        for (int step = 0; step < 20000; step++) {
+            int id = random.nextInt(200);
+            if (expected.contains(id)) {
+                if (random.nextBoolean())
+                    assertEquals(expected.remove((Integer) id), list.remove((Integer) id));
+                else {
+                    int index = expected.indexOf(id);
+                    assertEquals(expected.remove(index), list.remove(index));
+                }
+            } else {
+                int index = random.nextInt(expected.size() + 1);
+                expected.add(index, id);
+                list.add(index, id);
+            }
+            assertEquals(expected, list);
+            assertEquals(expected.indexOf(id), list.indexOf(id));
+            assertEquals(expected.contains(id), list.contains(id));
+        }
+        list.clear();
+        assertTrue(list.isEmpty());
+        assertFalse(list.contains(expected.isEmpty() ? 0 : expected.get(0)));
+    }
+
+    @Test
+    void shuffleOnlyReordersTheIds() {
+        ShortList list = new ShortList(81, 81);
+        list.fill(81);
+        Collections.shuffle(list, new Random(3));
+        List<Integer> sorted = new ArrayList<>(list);
+        Collections.sort(sorted);
+        for (int id = 0; id < 81; id++)
+            assertEquals(id, (int) sorted.get(id));
+        assertThrows(IllegalArgumentException.class, () -> list.set(0, 81));
+    }
+
+    @Test
+    void badIdsAreRejected() {
+        ShortList list = new ShortList(4, 10);
+        list.add(3);
+        assertThrows(IllegalArgumentException.class, () -> list.add(3));
+        assertThrows(IllegalArgumentException.class, () -> list.add(10));
+        assertThrows(IllegalArgumentException.class, () -> list.add(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(1));
+    }
+
+    @Test
+    void idsMustFitInAShort() {
+        ShortList list = new ShortList(1, Short.MAX_VALUE + 1);
+        list.add(Short.MAX_VALUE + 0);
+        assertEquals(Short.MAX_VALUE, (int) list.get(0));
+        assertThrows(IllegalArgumentException.class, () -> new ShortList(1, Short.MAX_VALUE + 2));
+    }
+}
@@ -0,0 +1,119 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Util;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TableSetIndexTest {
+
+    private static Util util(String setRule) {
+        Properties properties = new Properties();
+        properties.setProperty("SetRule", setRule);
+        return new UtilImpl(new Config(Logger.getLogger("test"), properties));
+    }
+
+    private static List<Integer> with(List<Integer> table, List<Integer> cards) {
+        List<Integer> all = new ArrayList<>(table);
+        all.addAll(cards);
+        return all;
+    }
+
+    private static boolean hasSet(Util util, List<Integer> cards) {
+        return !util.findSets(cards, 1).isEmpty();
+    }
+
+    /**
+     * Returns the fewest deck cards (at most count) that make a set with the table, by brute force (0 if none).
+     */
+    private static int fewestForSet(Util util, List<Integer> table, List<Integer> deck, int count) {
+        for (int card : deck)
+            if (hasSet(util, with(table, Collections.singletonList(card))))
+                return 1;
+        if (count >= 2)
+            for (int i = 0; i < deck.size(); i++)
+                for (int j = i + 1; j < deck.size(); j++)
+                    if (hasSet(util, with(table, Arrays.asList(deck.get(i), deck.get(j)))))
+                        return 2;
+        return count >= 3 && hasSet(util, deck) ? 3 : 0;
+    }
+
+    @Test
+    void randomDealsMatchFindSets() {
+        Util util = util("classic");
+        TableSetIndex index = new TableSetIndex(util, 12, 81, 3);
+        Random random = new Random(11);
+        List<Integer> table = new ArrayList<>();
+        List<Integer> deck = new ArrayList<>();
+        for (int card = 0; card < 81; card++)
+            deck.add(card);
+        for (int step = 0; step < 3000; step++) {
+            if (table.size() < 12 && (table.isEmpty() || random.nextInt(3) > 0)) {
+                int card = deck.remove(random.nextInt(deck.size()));
+                table.add(card);
+                index.add(card);
+            } else {
+                int card = table.remove(random.nextInt(table.size()));
+                deck.add(card);
+                index.remove(card);
+            }
+            assertEquals(util.findSets(table, Integer.MAX_VALUE).size(), index.sets());
+
+            if (step % 10 != 0)
+                continue;
+            int count = 12 - table.size();
+            List<Integer> cards = index.cardsForSet(deck, count);
+            if (index.sets() > 0) {
+                assertTrue(cards.isEmpty());
+            } else {
+                assertEquals(fewestForSet(util, table, deck, count), cards.size());
+                assertTrue(cards.size() <= count);
+                assertEquals(cards.size(), new HashSet<>(cards).size());
+                assertTrue(deck.containsAll(cards));
+                if (!cards.isEmpty())
+                    assertTrue(hasSet(util, with(table, cards)));
+            }
+
+            TableSetIndex.Swap swap = index.swapForSet(deck);
+            if (swap == null) {
+                assertFalse(hasSet(util, with(table, deck)));
+            } else {
+                assertTrue(deck.containsAll(swap.cards));
+                assertTrue(table.containsAll(swap.keep));
+                List<Integer> set = with(swap.keep, swap.cards);
+                assertEquals(3, set.size());
+                assertTrue(hasSet(util, set));
+            }
+        }
+    }
+
+    @Test
+    void theIndexIsEmptyForSetsThatAreNotOfThreeCards() {
+        Util util = util("ultra");
+        TableSetIndex index = new TableSetIndex(util, 12, 81, util.setSize());
+        List<Integer> deck = new ArrayList<>();
+        for (int card = 0; card < 81; card++) {
+            if (card < 12)
+                index.add(card);
+            else
+                deck.add(card);
+        }
+        assertEquals(0, index.sets());
+        assertTrue(index.cardsForSet(deck, 12).isEmpty());
+        assertNull(index.swapForSet(deck));
+    }
+}
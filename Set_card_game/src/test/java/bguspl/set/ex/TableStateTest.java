@@ -0,0 +1,61 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TableStateTest {
+
+    private static void assertNewGame(TableState state, int tableSize, int deckSize, int tokenWords) {
+        assertEquals(tableSize, state.slotToCard.length);
+        assertEquals(deckSize, state.cardToSlot.length);
+        assertEquals(tokenWords, state.tokenWords);
+        for (short card : state.slotToCard)
+            assertEquals(TableState.NONE, card);
+        for (short slot : state.cardToSlot)
+            assertEquals(TableState.NONE, slot);
+        for (long tokens : state.slotTokens)
+            assertEquals(0, tokens);
+        assertEquals(deckSize, state.deck.size());
+        for (int card = 0; card < deckSize; card++)
+            assertEquals(card, (int) state.deck.get(card));
+    }
+
+    @Test
+    void aReleasedStateIsReusedByTheNextGameOfItsShape() {
+        TableState state = TableState.acquire(12, 81, 70, true);
+        assertNewGame(state, 12, 81, 2);
+        state.slotToCard[3] = 5;
+        state.cardToSlot[5] = 3;
+        state.slotTokens[7] = -1;
+        state.deck.remove((Integer) 5);
+        state.release();
+
+        // the number of players only matters through the words of the token bitmasks
+        TableState reused = TableState.acquire(12, 81, 100, true);
+        assertSame(state, reused);
+        assertNewGame(reused, 12, 81, 2);
+        reused.release();
+    }
+
+    @Test
+    void otherShapesAndUnpooledGamesGetANewState() {
+        TableState state = TableState.acquire(20, 81, 4, true);
+        state.release();
+        assertNotSame(state, TableState.acquire(20, 81, 4, false));
+        assertNotSame(state, TableState.acquire(21, 81, 4, true));
+        assertNotSame(state, TableState.acquire(20, 64, 4, true));
+        assertNotSame(state, TableState.acquire(20, 81, 65, true));
+        assertSame(state, TableState.acquire(20, 81, 4, true));
+    }
+
+    @Test
+    void idsMustFitInAShort() {
+        assertNewGame(TableState.acquire(12, Short.MAX_VALUE + 1, 2, false), 12, Short.MAX_VALUE + 1, 1);
+        assertThrows(IllegalArgumentException.class, () -> TableState.acquire(12, 59049, 2, false));
+        assertThrows(IllegalArgumentException.class, () -> TableState.acquire(Short.MAX_VALUE + 2, 81, 2, false));
+    }
+}